@@ -0,0 +1,78 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Объёмы данных для бенчмарков: 100 владельцев по 50 вещей, 100 арендаторов,
+ * 10 броней и 3 отзыва на вещь. Пользователи в пустой БД получают id подряд, начиная с 1:
+ * владельцы 1..100, арендаторы 101..200. Id вещей выдаёт последовательность с шагом 50,
+ * поэтому брони и отзывы ссылаются на id, прочитанные из БД после вставки.
+ */
+public final class BenchmarkData {
+    public static final int OWNERS = 100;
+    public static final int BOOKERS = 100;
+    public static final int ITEMS_PER_OWNER = 50;
+    public static final int BOOKINGS_PER_ITEM = 10;
+    public static final int COMMENTS_PER_ITEM = 3;
+
+    private static final BookingStatus[] STATUSES = {
+            BookingStatus.APPROVED, BookingStatus.WAITING, BookingStatus.REJECTED
+    };
+
+    private BenchmarkData() {
+    }
+
+    public static long ownerId(int index) {
+        return index % OWNERS + 1;
+    }
+
+    public static long bookerId(int index) {
+        return OWNERS + index % BOOKERS + 1;
+    }
+
+    static void seed(JdbcTemplate jdbc) {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < OWNERS + BOOKERS; i++) {
+            users.add(new Object[]{"user " + i, "user" + i + "@mail.ru"});
+        }
+        jdbc.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", users);
+
+        List<Object[]> items = new ArrayList<>();
+        for (int owner = 0; owner < OWNERS; owner++) {
+            for (int i = 0; i < ITEMS_PER_OWNER; i++) {
+                items.add(new Object[]{"item " + owner + "-" + i, "description of item " + i, true, ownerId(owner)});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO items (name, description, available, owner_id) VALUES (?, ?, ?, ?)", items);
+        List<Long> itemIds = jdbc.queryForList("SELECT id FROM items ORDER BY id", Long.class);
+
+        // брони вещи идут каждые 10 дней по 7 дней: от -45 до +45 дней от текущего момента.
+        // Бронь с номером j у вещи с номером i получает арендатор i + j: при любом j номера вещей
+        // перебирают всех арендаторов, поэтому у каждого арендатора и владельца есть брони
+        // во всех состояниях BookingServiceBenchmark — прошлые, текущая, будущие и ожидающие
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        for (int i = 0; i < itemIds.size(); i++) {
+            Long itemId = itemIds.get(i);
+            for (int j = 0; j < BOOKINGS_PER_ITEM; j++) {
+                LocalDateTime start = now.minusDays(45L).plusDays(j * 10L);
+                bookings.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(7L)),
+                        bookerId(i + j), itemId, STATUSES[j % STATUSES.length].name()});
+            }
+            for (int j = 0; j < COMMENTS_PER_ITEM; j++) {
+                comments.add(new Object[]{"comment " + j, itemId, bookerId(i + j),
+                        Timestamp.valueOf(now.minusDays(j))});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO bookings (start_date, end_date, booker_id, item_id, status) " +
+                "VALUES (?, ?, ?, ?, ?)", bookings);
+        jdbc.batchUpdate("INSERT INTO comments (text, item_id, author_id, created) VALUES (?, ?, ?, ?)", comments);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.GetBookingRequest;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача броней арендатора и владельца по состояниям.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+    @Param({"ALL", "PAST", "CURRENT", "FUTURE", "WAITING"})
+    private ru.practicum.shareit.booking.State state;
+    @Param({"false", "true"})
+    private boolean owner;
+    @Param({"20"})
+    private int size;
+
+    private ServerContext server;
+    private BookingService bookingService;
+    private int user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = ServerContext.start();
+        bookingService = server.bean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> getAllUserBookings() {
+        int index = user++;
+        Long userId = owner ? BenchmarkData.ownerId(index) : BenchmarkData.bookerId(index);
+        return bookingService.getAllUserBookings(GetBookingRequest.of(state, userId, owner, 0, size));
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.benchmark;
+
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.RequestItem;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сущности в памяти для бенчмарков мапперов и сериализации, без обращения к БД.
+ */
+final class Fixtures {
+    private static final LocalDateTime NOW = LocalDateTime.of(2022, 9, 1, 12, 0);
+
+    private Fixtures() {
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .name("user " + id)
+                .email("user" + id + "@mail.ru")
+                .build();
+    }
+
+    static RequestItem request(long id) {
+        return RequestItem.builder()
+                .id(id)
+                .description("need item " + id)
+                .requestor(user(id))
+                .created(NOW.minusDays(id))
+                .build();
+    }
+
+    static List<Item> items(int count, List<RequestItem> requests) {
+        User owner = user(0L);
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(Item.builder()
+                    .id((long) i)
+                    .name("item " + i)
+                    .description("description of item " + i)
+                    .available(true)
+                    .owner(owner)
+                    .request(requests.isEmpty() ? null : requests.get(i % requests.size()))
+                    .build());
+        }
+        return items;
+    }
+
+    static List<Booking> bookings(List<Item> items) {
+        List<Booking> bookings = new ArrayList<>(items.size());
+        for (Item item : items) {
+            bookings.add(Booking.builder()
+                    .id(item.getId())
+                    .startDate(NOW.plusDays(item.getId()))
+                    .endDate(NOW.plusDays(item.getId() + 1))
+                    .item(item)
+                    .booker(user(item.getId() + 1))
+                    .status(BookingStatus.APPROVED)
+                    .build());
+        }
+        return bookings;
+    }
+
+    static List<Comment> comments(List<Item> items) {
+        List<Comment> comments = new ArrayList<>(items.size());
+        for (Item item : items) {
+            comments.add(Comment.builder()
+                    .id(item.getId())
+                    .text("comment on item " + item.getId())
+                    .item(item)
+                    .author(user(item.getId() + 1))
+                    .created(NOW.minusHours(item.getId()))
+                    .build());
+        }
+        return comments;
+    }
+
+    static BookingShortDto shortBooking(long id, long days) {
+        return BookingShortDto.builder()
+                .id(id)
+                .bookerId(id + 1)
+                .start(NOW.plusDays(days))
+                .end(NOW.plusDays(days + 1))
+                .build();
+    }
+}
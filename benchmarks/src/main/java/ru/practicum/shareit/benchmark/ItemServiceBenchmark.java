@@ -0,0 +1,43 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Список вещей владельца: выборка вещей, ближайших броней и отзывов
+ * и их сборка в ItemServiceImpl.connectBookingsAndComments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+    @Param({"10", "50"})
+    private int size;
+
+    private ServerContext server;
+    private ItemService itemService;
+    private int owner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = ServerContext.start();
+        itemService = server.bean(ItemService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> getItemsByOwner() {
+        return itemService.getItemsByOwner(BenchmarkData.ownerId(owner++), 0, size);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.utils.BookingMapper;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.utils.CommentMapper;
+import ru.practicum.shareit.item.utils.ItemMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация страниц ответов тем же ObjectMapper, что собирает Spring Boot для контроллеров.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"20", "100"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private List<ItemResponseDto> items;
+    private Object bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Item> entities = Fixtures.items(size, List.of());
+        List<CommentResponseDto> comments = CommentMapper.toResponseDto(Fixtures.comments(entities).subList(0, 3));
+        BookingShortDto next = Fixtures.shortBooking(1L, 1L);
+        BookingShortDto last = Fixtures.shortBooking(2L, -2L);
+        items = new ArrayList<>(size);
+        for (Item item : entities) {
+            items.add(ItemMapper.toItemResponseDto(item, next, last, comments));
+        }
+        bookings = BookingMapper.toResponseDto(Fixtures.bookings(entities));
+    }
+
+    @Benchmark
+    public byte[] writeItems() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] writeBookings() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(bookings);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.utils.BookingMapper;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.utils.CommentMapper;
+import ru.practicum.shareit.item.utils.ItemMapper;
+import ru.practicum.shareit.request.dto.RequestItemResponseDto;
+import ru.practicum.shareit.request.model.RequestItem;
+import ru.practicum.shareit.request.utils.RequestItemMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Преобразование сущностей в ответы сервера на страницах типичного размера.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"20", "100"})
+    private int size;
+
+    private List<Booking> bookings;
+    private List<Item> items;
+    private List<Comment> comments;
+    private List<CommentResponseDto> itemComments;
+    private List<RequestItem> requests;
+    private Map<Long, List<Item>> itemsByRequest;
+    private BookingShortDto next;
+    private BookingShortDto last;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        requests = LongStream.range(0, size).mapToObj(Fixtures::request).collect(Collectors.toList());
+        items = Fixtures.items(size, requests);
+        bookings = Fixtures.bookings(items);
+        comments = Fixtures.comments(items);
+        itemComments = CommentMapper.toResponseDto(comments.subList(0, Math.min(3, size)));
+        itemsByRequest = items.stream().collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        next = Fixtures.shortBooking(1L, 1L);
+        last = Fixtures.shortBooking(2L, -2L);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingsToResponseDto() {
+        return BookingMapper.toResponseDto(bookings);
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> itemsToResponseDto() {
+        List<ItemResponseDto> dtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            dtos.add(ItemMapper.toItemResponseDto(item, next, last, itemComments));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<CommentResponseDto> commentsToResponseDto() {
+        return CommentMapper.toResponseDto(comments);
+    }
+
+    @Benchmark
+    public List<RequestItemResponseDto> requestsToResponseDto() {
+        return RequestItemMapper.toResponseDto(requests, itemsByRequest);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Контекст сервера без веб-слоя поверх встроенной H2, заполненной {@link BenchmarkData}.
+ */
+public class ServerContext implements AutoCloseable {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final ConfigurableApplicationContext context;
+
+    private ServerContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static ServerContext start() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark" + DATABASES.incrementAndGet(),
+                        "--spring.datasource.username=benchmark",
+                        "--spring.datasource.password=benchmark",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--shareit.search.engine=like",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class));
+        return new ServerContext(context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.benchmark;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Param;
+import ru.practicum.shareit.booking.State;
+import ru.practicum.shareit.booking.dto.GetBookingRequest;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.service.ItemService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Данные должны подходить бенчмаркам при любых значениях {@link Param}: выдача броней без результата
+ * завершается BookingNotFoundException, и замер прерывается.
+ */
+class BenchmarkDataTest {
+    private static ServerContext server;
+
+    @BeforeAll
+    static void start() {
+        server = ServerContext.start();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    @Test
+    void seed_shouldGiveEveryUserBookingsInEveryBenchmarkedState() throws NoSuchFieldException {
+        // given
+        BookingService bookingService = server.bean(BookingService.class);
+        String[] states = BookingServiceBenchmark.class.getDeclaredField("state").getAnnotation(Param.class).value();
+        for (String name : states) {
+            State state = State.valueOf(name);
+            for (int i = 0; i < BenchmarkData.OWNERS; i++) {
+                // when
+                GetBookingRequest byOwner = GetBookingRequest.of(state, BenchmarkData.ownerId(i), true, 0, 20);
+                GetBookingRequest byBooker = GetBookingRequest.of(state, BenchmarkData.bookerId(i), false, 0, 20);
+                // then
+                assertThat(bookingService.getAllUserBookings(byOwner), not(empty()));
+                assertThat(bookingService.getAllUserBookings(byBooker), not(empty()));
+            }
+        }
+    }
+
+    @Test
+    void seed_shouldGiveEveryOwnerItems() {
+        // given
+        ItemService itemService = server.bean(ItemService.class);
+        for (int i = 0; i < BenchmarkData.OWNERS; i++) {
+            // when
+            int items = itemService.getItemsByOwner(BenchmarkData.ownerId(i), 0, 50).size();
+            // then
+            assertThat(items, is(BenchmarkData.ITEMS_PER_OWNER));
+        }
+    }
+}
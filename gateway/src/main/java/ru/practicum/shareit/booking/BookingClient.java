@@ -1,60 +1,90 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionList;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.ExportFormat;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.ShareItServerProperties;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private static final String UPDATED = "UPDATED";
 
-    @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(ServerConnectionPool pool, ResponseCache cache, ObjectMapper mapper,
+                         ShareItServerProperties server) {
+        super(pool, cache, mapper, server, API_PREFIX);
     }
 
-    public ResponseEntity<Object> addBooking(Long userId, BookingRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public CompletableFuture<ResponseEntity<Object>> addBooking(Long userId, BookingRequestDto requestDto) {
+        return evictAfter(post("", userId, requestDto), "/items/" + requestDto.getItemId());
     }
 
-    public ResponseEntity<Object> getBookingById(Long userId, Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getAllUserBookings(Long userId, State state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getAllUserBookings(Long userId, State state, int from, int size, String cursor) {
+        return get(listQuery(cursor), userId, listParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> getAllUserItemBookings(Long userId, State state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getAllUserItemBookings(Long userId, State state, int from, int size, String cursor) {
+        return get("/owner" + listQuery(cursor), userId, listParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> approveBooking(Long bookingId, Boolean approved, Long ownerId) {
-        return patch("/" + bookingId + "?approved=" + approved, ownerId, null);
+    private static String listQuery(String cursor) {
+        String query = "?state={state}&from={from}&size={size}";
+        return cursor != null ? query + "&cursor={cursor}" : query;
+    }
+
+    private static Map<String, Object> listParameters(State state, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
+    }
+
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportOwnerBookings(Long ownerId, State state,
+                                                                                       ExportFormat format) {
+        return getStream("/owner/export?state={state}&format={format}", ownerId,
+                Map.of("state", state.name(), "format", format.name()));
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> approveBooking(Long bookingId, Boolean approved, Long ownerId) {
+        // ближайшие брони показываются в вещи; id вещи брони известен только из ответа
+        return evictAfter(patch("/" + bookingId + "?approved=" + approved, ownerId, null),
+                booking -> itemResources(Stream.of(booking.path("item").path("id"))));
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> approveBookings(Long ownerId, BookingDecisionList decisions) {
+        return evictAfter(patch("/approve", ownerId, decisions),
+                results -> itemResources(StreamSupport.stream(results.spliterator(), false)
+                        .filter(result -> UPDATED.equals(result.path("outcome").asText()))
+                        .map(result -> result.path("itemId"))));
+    }
+
+    private static Stream<String> itemResources(Stream<JsonNode> itemIds) {
+        return itemIds.filter(JsonNode::canConvertToLong)
+                .map(id -> "/items/" + id.asLong())
+                .distinct();
     }
 
 }
@@ -6,7 +6,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionList;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.ExportFormat;
 import ru.practicum.shareit.booking.dto.State;
 
 import javax.validation.Valid;
@@ -14,6 +17,8 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
+import java.util.concurrent.CompletableFuture;
+
 @Controller
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
@@ -23,41 +28,60 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> addBooking(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                             @RequestBody @Valid BookingRequestDto requestDto) {
+    public CompletableFuture<ResponseEntity<Object>> addBooking(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                @RequestBody @Valid BookingRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.addBooking(userId, requestDto);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBookingById(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                 @PathVariable Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                    @PathVariable Long bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBookingById(userId, bookingId);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approveBooking(@PathVariable Long bookingId,
-                                                 @RequestParam Boolean approved,
-                                                 @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+    public CompletableFuture<ResponseEntity<Object>> approveBooking(@PathVariable Long bookingId,
+                                                                    @RequestParam Boolean approved,
+                                                                    @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
         return bookingClient.approveBooking(bookingId, approved, ownerId);
     }
 
+    @PatchMapping("/approve")
+    public CompletableFuture<ResponseEntity<Object>> approveBookings(@RequestBody @Valid BookingDecisionList decisions,
+                                                                     @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+        log.info("Approve {} bookings, ownerId={}", decisions.getDecisions().size(), ownerId);
+        return bookingClient.approveBookings(ownerId, decisions);
+    }
+
     @GetMapping
-    public ResponseEntity<Object> getAllUserBookings(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                     @RequestParam(defaultValue = "ALL") State state,
-                                                     @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                                     @Positive @RequestParam(defaultValue = "10") int size) {
-        log.info("Get booking with state {}, userId={}, from={}, size={}", state, userId, from, size);
-        return bookingClient.getAllUserBookings(userId, state, from, size);
+    public CompletableFuture<ResponseEntity<Object>> getAllUserBookings(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                        @RequestParam(defaultValue = "ALL") State state,
+                                                                        @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                                        @Positive @RequestParam(defaultValue = "10") int size,
+                                                                        @RequestParam(required = false) String cursor) {
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}", state, userId, from, size, cursor);
+        return bookingClient.getAllUserBookings(userId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getAllUserItemBookings(@RequestParam(defaultValue = "ALL") State state,
-                                                         @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                         @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
-                                                         @RequestParam(required = false, defaultValue = "10") @Positive int size) {
-        log.info("Get booking of owner with state {}, userId={}, from={}, size={}", state, userId, from, size);
-        return bookingClient.getAllUserItemBookings(userId, state, from, size);
+    public CompletableFuture<ResponseEntity<Object>> getAllUserItemBookings(@RequestParam(defaultValue = "ALL") State state,
+                                                                            @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                            @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
+                                                                            @RequestParam(required = false, defaultValue = "10") @Positive int size,
+                                                                            @RequestParam(required = false) String cursor) {
+        log.info("Get booking of owner with state {}, userId={}, from={}, size={}, cursor={}",
+                state, userId, from, size, cursor);
+        return bookingClient.getAllUserItemBookings(userId, state, from, size, cursor);
+    }
+
+    @GetMapping("/owner/export")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportOwnerBookings(
+            @RequestParam(defaultValue = "ALL") State state,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+        log.info("Export bookings of owner with state {}, ownerId={}, format={}", state, ownerId, format);
+        return bookingClient.exportOwnerBookings(ownerId, state, format);
     }
 }
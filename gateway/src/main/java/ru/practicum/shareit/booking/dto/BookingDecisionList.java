@@ -0,0 +1,30 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Value;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Тело пакетного подтверждения броней: JSON-массив решений.
+ * Обёртка нужна, чтобы массив проверялся как обычное тело запроса через {@code @Valid}.
+ */
+@Value
+public class BookingDecisionList {
+    public static final int MAX_SIZE = 500;
+
+    @JsonValue
+    @NotEmpty
+    @Size(max = MAX_SIZE)
+    List<@Valid @NotNull BookingDecisionDto> decisions;
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public BookingDecisionList(List<BookingDecisionDto> decisions) {
+        this.decisions = decisions;
+    }
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.dto;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
@@ -1,117 +1,326 @@
 package ru.practicum.shareit.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilderFactory;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+/**
+ * Проксирует запросы на сервер без блокировки: ответ возвращается в {@link CompletableFuture},
+ * и поток контроллера освобождается до прихода ответа сервера.
+ */
+@Slf4j
 public class BaseClient {
-    protected final RestTemplate rest;
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    /**
+     * Условные заголовки клиента: сервер сам сверяет ETag и отвечает 304 без сборки выдачи.
+     */
+    private static final List<String> CONDITIONAL_HEADERS = List.of(HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length", "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization");
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+    private final ServerConnectionPool pool;
+    private final ResponseCache cache;
+    private final ObjectMapper mapper;
+    private final String apiPrefix;
+    private final UriBuilderFactory uriFactory;
+    private final Duration responseTimeout;
+    private final Duration streamTimeout;
+    private final boolean passthrough;
+
+    public BaseClient(ServerConnectionPool pool, ResponseCache cache, ObjectMapper mapper,
+                      ShareItServerProperties server, String apiPrefix) {
+        this.pool = pool;
+        this.cache = cache;
+        this.mapper = mapper;
+        this.apiPrefix = apiPrefix;
+        this.uriFactory = new DefaultUriBuilderFactory(server.getUrl() + apiPrefix);
+        this.responseTimeout = server.getResponseTimeout();
+        this.streamTimeout = server.getStreamTimeout();
+        this.passthrough = server.isPassthrough();
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId,
+                                                           @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * Чтение ресурса через {@link ResponseCache}; {@code path} без параметров запроса.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> getCached(String path, Long userId) {
+        String resource = apiPrefix + path;
+        Optional<ResponseEntity<Object>> cached = cache.get(resource, userId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        long version = cache.version(resource);
+        return get(path, userId).thenApply(response -> {
+            cache.put(resource, userId, response, version);
+            return response;
+        });
+    }
+
+    /**
+     * Сбрасывает закэшированные ответы по ресурсам, которые мог изменить запрос, после его завершения.
+     * Формат ресурсов — как в {@link ResponseCache#evict}.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> evictAfter(CompletableFuture<ResponseEntity<Object>> request,
+                                                                   String... resources) {
+        return request.whenComplete((response, ex) -> cache.evict(resources));
+    }
+
+    /**
+     * Сбрасывает ресурсы, известные только из успешного ответа сервера (например, вещь подтверждённой брони).
+     * Ответ с ошибкой ничего не изменил; если ответа нет вовсе, изменение станет видно по истечении {@code ttl}.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> evictAfter(CompletableFuture<ResponseEntity<Object>> request,
+                                                                   Function<JsonNode, Stream<String>> resources) {
+        return request.whenComplete((response, ex) -> {
+            if (response == null || !response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                return;
+            }
+            try {
+                Object body = response.getBody();
+                JsonNode tree = body instanceof byte[] ? mapper.readTree((byte[]) body) : mapper.valueToTree(body);
+                cache.evict(resources.apply(tree).toArray(String[]::new));
+            } catch (IOException | IllegalArgumentException parseError) {
+                log.warn("Не удалось разобрать ответ сервера для сброса кэша: {}", parseError.toString());
+            }
+        });
+    }
+
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId,
+                                                                @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, Long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, Long userId,
+                                                               @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId,
+                                                                 @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId,
+                                                              @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * GET с передачей тела ответа клиенту по мере чтения, без буферизации в шлюзе.
+     * Тело не разбирается и не кэшируется; соединение с сервером занято, пока тело не передано
+     * или запрос клиента не завершился иначе (см. {@link StreamingExchange}).
+     */
+    protected CompletableFuture<ResponseEntity<StreamingResponseBody>> getStream(String path, Long userId,
+                                                                                Map<String, Object> parameters) {
+        URI uri = uriFactory.expand(path, parameters);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .GET()
+                .headers(defaultHeaders(HttpMethod.GET, userId))
+                .timeout(responseTimeout)
+                .build();
+        log.debug("GET {} (stream)", uri);
+        StreamingExchange exchange = StreamingExchange.register(streamTimeout);
+        return pool.sendStreaming(request)
+                .handle((response, ex) -> {
+                    if (ex != null) {
+                        throw translate(HttpMethod.GET, uri, ex);
+                    }
+                    log.debug("GET {} -> {}", uri, response.statusCode());
+                    exchange.attach(response.body());
+                    StreamingResponseBody body = out -> {
+                        try (InputStream in = response.body()) {
+                            in.transferTo(out);
+                        }
+                    };
+                    return ResponseEntity.status(response.statusCode())
+                            .headers(responseHeaders(response))
+                            .body(body);
+                });
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path,
+                                                                             Long userId,
+                                                                             @Nullable Map<String, Object> parameters,
+                                                                             @Nullable T body) {
+        URI uri = parameters != null ? uriFactory.expand(path, parameters) : uriFactory.expand(path);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method(method.name(), bodyPublisher(body))
+                .headers(defaultHeaders(method, userId))
+                .timeout(responseTimeout)
+                .build();
+        log.debug("{} {}", method, uri);
+        return pool.send(request)
+                .handle((response, ex) -> {
+                    if (ex != null) {
+                        throw translate(method, uri, ex);
+                    }
+                    log.debug("{} {} -> {}", method, uri, response.statusCode());
+                    return prepareGatewayResponse(response);
+                });
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
+    private <T> HttpRequest.BodyPublisher bodyPublisher(@Nullable T body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Не удалось сериализовать тело запроса", ex);
         }
-        return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+    private static String[] defaultHeaders(HttpMethod method, Long userId) {
+        List<String> headers = new ArrayList<>(List.of(
+                HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE,
+                HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE
+        ));
         if (userId != null) {
-            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+            headers.add(USER_HEADER);
+            headers.add(String.valueOf(userId));
         }
-        return headers;
+        if (method == HttpMethod.GET) {
+            addConditionalHeaders(headers);
+        }
+        return headers.toArray(String[]::new);
     }
 
-    private ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    /**
+     * Читает заголовки входящего запроса; вызывается в потоке контроллера, до ухода запроса в пул.
+     */
+    private static void addConditionalHeaders(List<String> headers) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return;
         }
+        HttpServletRequest incoming = ((ServletRequestAttributes) attributes).getRequest();
+        for (String name : CONDITIONAL_HEADERS) {
+            String value = incoming.getHeader(name);
+            if (value != null) {
+                headers.add(name);
+                headers.add(value);
+            }
+        }
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private ResponseEntity<Object> prepareGatewayResponse(HttpResponse<byte[]> response) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.statusCode())
+                .headers(responseHeaders(response));
+        byte[] body = response.body();
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        if (body == null || body.length == 0) {
+            return responseBuilder.build();
         }
+        // заголовки ответа сервера, включая Content-Type, уже перенесены: байты уходят клиенту без изменений
+        if (passthrough || HttpStatus.Series.resolve(response.statusCode()) != HttpStatus.Series.SUCCESSFUL) {
+            return responseBuilder.body(body);
+        }
+        try {
+            return responseBuilder.body(mapper.readValue(body, Object.class));
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Некорректный ответ сервера", ex);
+        }
+    }
 
-        return responseBuilder.build();
+    private static HttpHeaders responseHeaders(HttpResponse<?> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach((name, values) -> {
+            if (!name.startsWith(":") && !HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
+    private static RuntimeException translate(HttpMethod method, URI uri, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        log.warn("{} {} не выполнен: {}", method, uri, cause.toString());
+        if (cause instanceof HttpTimeoutException) {
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Сервер не ответил вовремя", cause);
+        }
+        if (cause instanceof TimeoutException) {
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Нет свободных соединений с сервером", cause);
+        }
+        if (cause instanceof ConnectException) {
+            return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Сервер недоступен", cause);
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause
+                : new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Ошибка обращения к серверу", cause);
     }
 }
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ShareItServerProperties.class)
+public class ClientConfig {
+    static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    static final String POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+    static final Duration ASYNC_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+
+    /**
+     * Общий неблокирующий клиент для всех обращений к серверу: ожидание ответа не занимает поток Tomcat.
+     * Время простоя, после которого соединение закрывается, и число хранимых простаивающих соединений
+     * задаются только системными свойствами JVM ({@value #KEEP_ALIVE_PROPERTY}, {@value #POOL_SIZE_PROPERTY}):
+     * клиент JDK читает их один раз на всю JVM, поэтому здесь они лишь выводятся в лог.
+     */
+    @Bean
+    public HttpClient shareItServerHttpClient(ShareItServerProperties properties) {
+        log.info("Соединения с сервером: {}={}, {}={} (свойства JVM, общие для всех клиентов JDK)",
+                KEEP_ALIVE_PROPERTY, System.getProperty(KEEP_ALIVE_PROPERTY, "не задано"),
+                POOL_SIZE_PROPERTY, System.getProperty(POOL_SIZE_PROPERTY, "не задано"));
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+    }
+
+    /**
+     * Асинхронная обработка в Spring MVC ждёт дольше, чем может занять запрос к серверу целиком:
+     * ожидание соединения и ответа. Так клиент получает 503 или 504 шлюза, а не таймаут Spring MVC.
+     */
+    @Bean
+    public WebMvcConfigurer asyncTimeoutConfigurer(ShareItServerProperties properties) {
+        Duration timeout = asyncTimeout(properties);
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setDefaultTimeout(timeout.toMillis());
+            }
+        };
+    }
+
+    static Duration asyncTimeout(ShareItServerProperties properties) {
+        return properties.getPool().getAcquireTimeout()
+                .plus(properties.getResponseTimeout())
+                .plus(ASYNC_TIMEOUT_MARGIN);
+    }
+
+    @Bean
+    public ServerConnectionPool serverConnectionPool(HttpClient shareItServerHttpClient,
+                                                     ShareItServerProperties properties) {
+        return new ServerConnectionPool(shareItServerHttpClient, properties.getPool());
+    }
+
+    @Bean
+    public ResponseCache serverResponseCache(ShareItServerProperties properties) {
+        return new ResponseCache(properties.getCache());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ограничение числа одновременных запросов без блокировки: ожидающий получает разрешение
+ * в {@link CompletableFuture}, которое завершается при освобождении разрешения другим запросом.
+ */
+class Permits {
+    private final int max;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int inUse;
+
+    Permits(int max) {
+        this.max = max;
+    }
+
+    /**
+     * @return разрешение; завершается {@link TimeoutException}, если не освободилось за {@code timeout}
+     */
+    synchronized CompletableFuture<Void> acquire(Duration timeout) {
+        if (inUse < max) {
+            inUse++;
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (remove(waiter)) {
+                waiter.completeExceptionally(new TimeoutException("Разрешение не получено за " + timeout));
+            }
+        });
+        return waiter;
+    }
+
+    void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                inUse--;
+                return;
+            }
+        }
+        // разрешение переходит следующему ожидающему без изменения счётчика
+        next.complete(null);
+    }
+
+    synchronized int inUse() {
+        return inUse;
+    }
+
+    synchronized int pending() {
+        return waiters.size();
+    }
+
+    int max() {
+        return max;
+    }
+
+    private synchronized boolean remove(CompletableFuture<Void> waiter) {
+        return waiters.remove(waiter);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Value;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш успешных ответов сервера на чтение ресурса, общий для всех клиентов шлюза.
+ * Ответ хранится не дольше {@code ttl}; при превышении {@code max-entries} вытесняется по политике Caffeine.
+ * Ключ — ресурс (путь с запросом) и пользователь. Изменяющие запросы через шлюз сбрасывают затронутые ресурсы;
+ * ответ на чтение, начатое до сброса, в кэш не попадает.
+ * <p>
+ * Сброс не ищет ключи: он выдаёт ресурсу или префиксу новую версию из общего счётчика, а ответ в кэше
+ * действителен, пока его версия совпадает с наибольшей версией ресурса и его префиксов. Версия хранится
+ * {@code ttl}: ответы, сохранённые до сброса, к этому времени уже истекли.
+ */
+public class ResponseCache implements MeterBinder {
+    static final String METRIC_PREFIX = "shareit.gateway.cache.";
+
+    private final boolean enabled;
+    private final Cache<String, Entry> entries;
+    private final Cache<String, Long> versions;
+    private final AtomicLong lastVersion = new AtomicLong();
+    private Counter hits;
+    private Counter misses;
+
+    public ResponseCache(ShareItServerProperties.Cache properties) {
+        this(properties, Ticker.systemTicker());
+    }
+
+    ResponseCache(ShareItServerProperties.Cache properties, Ticker ticker) {
+        this.enabled = properties.isEnabled();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public Optional<ResponseEntity<Object>> get(String resource, Long userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String key = key(resource, userId);
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && entry.version != version(resource)) {
+            entries.asMap().remove(key, entry);
+            entry = null;
+        }
+        increment(entry != null ? hits : misses);
+        return entry != null ? Optional.of(entry.response) : Optional.empty();
+    }
+
+    /**
+     * Отметка для {@link #put}: ответ сохраняется с версией ресурса на начало чтения и
+     * не отдаётся, если ресурс сбросили до или во время чтения.
+     */
+    public long version(String resource) {
+        long version = versionOf(resource);
+        for (int slash = resource.indexOf('/'); slash >= 0; slash = resource.indexOf('/', slash + 1)) {
+            version = Math.max(version, versionOf(resource.substring(0, slash + 1)));
+        }
+        return version;
+    }
+
+    public void put(String resource, Long userId, ResponseEntity<Object> response, long version) {
+        if (enabled && version == version(resource) && response.getStatusCode().is2xxSuccessful()) {
+            entries.put(key(resource, userId), new Entry(response, version));
+        }
+    }
+
+    /**
+     * Сбрасывает ответы по ресурсам: {@code /items/1} — только этот ресурс,
+     * {@code /items/} — все ресурсы с этим префиксом.
+     */
+    public void evict(String... resources) {
+        for (String resource : resources) {
+            versions.put(resource, lastVersion.incrementAndGet());
+        }
+    }
+
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        hits = Counter.builder(METRIC_PREFIX + "hits")
+                .description("Ответы, отданные из кэша шлюза")
+                .register(registry);
+        misses = Counter.builder(METRIC_PREFIX + "misses")
+                .description("Чтения, отправленные на сервер из-за отсутствия ответа в кэше")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "evictions", entries, cache -> cache.stats().evictionCount())
+                .description("Ответы, вытесненные из кэша по размеру или сроку")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "size", entries, Cache::estimatedSize)
+                .description("Ответы в кэше шлюза")
+                .register(registry);
+    }
+
+    private long versionOf(String resource) {
+        Long version = versions.getIfPresent(resource);
+        return version != null ? version : 0L;
+    }
+
+    private static String key(String resource, Long userId) {
+        return resource + " " + userId;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Value
+    private static class Entry {
+        ResponseEntity<Object> response;
+        long version;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Общий для всех клиентов шлюза пул соединений с сервером.
+ * Ограничивает число одновременных запросов всего и на каждый адрес сервера; запрос, не получивший
+ * соединение за {@code acquire-timeout}, завершается {@link TimeoutException}.
+ * Соединения переиспользуются {@link HttpClient}; простаивающие он закрывает сам, по времени из
+ * системного свойства JVM {@code jdk.httpclient.keepalive.timeout} (см. {@link ClientConfig}).
+ */
+public class ServerConnectionPool implements MeterBinder {
+    static final String METRIC_PREFIX = "shareit.server.pool.";
+
+    private final HttpClient http;
+    private final Permits total;
+    private final int maxPerRoute;
+    private final Duration acquireTimeout;
+    private final Map<String, Permits> routes = new ConcurrentHashMap<>();
+    private Counter timeouts;
+
+    public ServerConnectionPool(HttpClient http, ShareItServerProperties.Pool properties) {
+        this.http = http;
+        this.total = new Permits(properties.getMaxTotal());
+        this.maxPerRoute = properties.getMaxPerRoute();
+        this.acquireTimeout = properties.getAcquireTimeout();
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        Permits route = routes.computeIfAbsent(route(request.uri()), key -> new Permits(maxPerRoute));
+        return acquire(route)
+                .thenCompose(v -> acquireTotal(route))
+                .thenCompose(v -> sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, ex) -> {
+                            total.release();
+                            route.release();
+                        }));
+    }
+
+    /**
+     * Ответ завершается по приходу заголовков, тело читается из потока по мере поступления.
+     * Соединение считается занятым, пока поток тела не закрыт: вызывающий обязан его закрыть.
+     */
+    public CompletableFuture<HttpResponse<InputStream>> sendStreaming(HttpRequest request) {
+        Permits route = routes.computeIfAbsent(route(request.uri()), key -> new Permits(maxPerRoute));
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                total.release();
+                route.release();
+            }
+        };
+        HttpResponse.BodyHandler<InputStream> handler = info -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(), body -> new ReleasingInputStream(body, release));
+        return acquire(route)
+                .thenCompose(v -> acquireTotal(route))
+                .thenCompose(v -> sendAsync(request, handler)
+                        .whenComplete((response, ex) -> {
+                            if (ex != null) {
+                                release.run();
+                            }
+                        }));
+    }
+
+    public int active() {
+        return total.inUse();
+    }
+
+    public int pending() {
+        return total.pending() + routes.values().stream().mapToInt(Permits::pending).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + "active", this, ServerConnectionPool::active)
+                .description("Запросы к серверу, занимающие соединение")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "pending", this, ServerConnectionPool::pending)
+                .description("Запросы, ожидающие свободное соединение")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "max", total, Permits::max)
+                .description("Максимум одновременных соединений с сервером")
+                .register(registry);
+        timeouts = Counter.builder(METRIC_PREFIX + "acquire.timeouts")
+                .description("Запросы, не дождавшиеся свободного соединения")
+                .register(registry);
+    }
+
+    /**
+     * Ошибку, брошенную {@link HttpClient#sendAsync} сразу (например, на недопустимый запрос),
+     * возвращает завершённым с ошибкой ответом, чтобы занятые разрешения были освобождены.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        try {
+            return http.sendAsync(request, handler);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private CompletableFuture<Void> acquireTotal(Permits route) {
+        return acquire(total).whenComplete((v, ex) -> {
+            if (ex != null) {
+                route.release();
+            }
+        });
+    }
+
+    private CompletableFuture<Void> acquire(Permits permits) {
+        return permits.acquire(acquireTimeout)
+                .whenComplete((v, ex) -> {
+                    if (ex instanceof TimeoutException && timeouts != null) {
+                        timeouts.increment();
+                    }
+                });
+    }
+
+    private static String route(URI uri) {
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    private static class ReleasingInputStream extends FilterInputStream {
+        private final Runnable release;
+
+        ReleasingInputStream(InputStream in, Runnable release) {
+            super(in);
+            this.release = release;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
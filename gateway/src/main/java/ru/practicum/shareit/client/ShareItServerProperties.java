@@ -0,0 +1,70 @@
+package ru.practicum.shareit.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Подключение шлюза к серверу ShareIt.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server")
+public class ShareItServerProperties {
+    /**
+     * Адрес сервера.
+     */
+    private String url;
+    /**
+     * Время на установку соединения с сервером.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    /**
+     * Время ожидания ответа сервера, по истечении шлюз отвечает 504.
+     */
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    /**
+     * Время на передачу клиенту тела потокового ответа (выгрузки) вместо spring.mvc.async.request-timeout;
+     * ноль — без ограничения.
+     */
+    private Duration streamTimeout = Duration.ofHours(1);
+    /**
+     * Отдавать клиенту тело ответа сервера как есть, без разбора и повторной сериализации JSON.
+     */
+    private boolean passthrough = true;
+    /**
+     * Пул соединений, общий для всех клиентов шлюза.
+     */
+    private final Pool pool = new Pool();
+    /**
+     * Кэш ответов на чтение вещи, запроса и пользователя по id.
+     */
+    private final Cache cache = new Cache();
+
+    @Data
+    public static class Pool {
+        /**
+         * Максимум одновременных соединений со всеми адресами сервера.
+         */
+        private int maxTotal = 200;
+        /**
+         * Максимум одновременных соединений с одним адресом сервера.
+         */
+        private int maxPerRoute = 100;
+        /**
+         * Время ожидания свободного соединения, по истечении шлюз отвечает 503.
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        /**
+         * Время жизни ответа в кэше; ограничивает устаревание из-за изменений в обход шлюза
+         * и смены ближайших бронирований со временем.
+         */
+        private Duration ttl = Duration.ofSeconds(10);
+        private int maxEntries = 10_000;
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Тело потокового ответа сервера в пределах одного запроса клиента.
+ * Spring MVC вызывает {@link StreamingResponseBody} не всегда: при таймауте, обрыве соединения клиента
+ * или ошибке до начала записи тело осталось бы открытым и держало соединение пула. Поэтому тело
+ * закрывается и в обработчиках таймаута, ошибки и завершения асинхронного запроса; закрытие повторное
+ * безопасно. Передаче тела задаётся свой таймаут вместо {@code spring.mvc.async.request-timeout}.
+ */
+@Slf4j
+class StreamingExchange implements DeferredResultProcessingInterceptor, CallableProcessingInterceptor {
+    private static final InputStream FINISHED = InputStream.nullInputStream();
+
+    private final Duration timeout;
+    private final AtomicReference<InputStream> body = new AtomicReference<>();
+
+    StreamingExchange(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Подписывается на обработку текущего запроса; вызывается в потоке контроллера.
+     * Вне запроса (например, в тестах клиента) тело закрывает только тот, кто его пишет.
+     */
+    static StreamingExchange register(Duration timeout) {
+        StreamingExchange exchange = new StreamingExchange(timeout);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            WebAsyncManager manager = WebAsyncUtils.getAsyncManager(((ServletRequestAttributes) attributes).getRequest());
+            manager.registerDeferredResultInterceptor(StreamingExchange.class.getName(), exchange);
+            manager.registerCallableInterceptor(StreamingExchange.class.getName(), exchange);
+        }
+        return exchange;
+    }
+
+    /**
+     * Запоминает тело ответа; если запрос клиента уже завершён, сразу закрывает его.
+     */
+    void attach(InputStream in) {
+        if (!body.compareAndSet(null, in)) {
+            close(in);
+        }
+    }
+
+    void finish() {
+        InputStream in = body.getAndSet(FINISHED);
+        if (in != null && in != FINISHED) {
+            close(in);
+        }
+    }
+
+    @Override
+    public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        finish();
+        return true;
+    }
+
+    @Override
+    public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+        finish();
+        return true;
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        finish();
+    }
+
+    /**
+     * Вызывается перед стартом асинхронной записи тела, до применения таймаута к запросу.
+     */
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout(timeout.toMillis());
+        }
+    }
+
+    @Override
+    public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+        log.warn("Передача потокового ответа не уложилась в {}", timeout);
+        finish();
+        return RESULT_NONE;
+    }
+
+    @Override
+    public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+        finish();
+        return RESULT_NONE;
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        finish();
+    }
+
+    private static void close(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            log.debug("Не удалось закрыть тело ответа сервера: {}", ex.toString());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +15,9 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/items")
@@ -20,54 +25,71 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class ItemController {
     private final ItemClient itemClient;
+    private final ItemImporter itemImporter;
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@RequestBody @Validated(ItemRequestDto.NewItem.class) ItemRequestDto itemRequestDto,
-                                          @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+    public CompletableFuture<ResponseEntity<Object>> addItem(@RequestBody @Validated(ItemRequestDto.NewItem.class) ItemRequestDto itemRequestDto,
+                                                             @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
         return itemClient.addNewItem(itemRequestDto, ownerId);
     }
 
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, ItemImporter.APPLICATION_NDJSON_VALUE})
+    public CompletableFuture<ResponseEntity<Object>> importItems(InputStream body,
+                                                                 @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+        return itemImporter.importItems(body, ownerId);
+    }
+
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> updateItem(@Validated(ItemRequestDto.UpdateItem.class) @RequestBody ItemRequestDto itemRequestDto,
-                                             @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
-                                             @PathVariable("id") Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(@Validated(ItemRequestDto.UpdateItem.class) @RequestBody ItemRequestDto itemRequestDto,
+                                                                @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
+                                                                @PathVariable("id") Long itemId) {
         return itemClient.updateItem(itemRequestDto, ownerId, itemId);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getItemById(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                              @PathVariable("id") Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                 @PathVariable("id") Long itemId) {
         return itemClient.getItemById(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByOwner(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                  @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
-                                                  @RequestParam(required = false, defaultValue = "10") @Positive int size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByOwner(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                     @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
+                                                                     @RequestParam(required = false, defaultValue = "10") @Positive int size) {
         return itemClient.getItemsByOwner(userId, from, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> search(@RequestParam String text,
-                                         @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                         @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
-                                         @RequestParam(required = false, defaultValue = "10") @Positive int size) {
+    public CompletableFuture<ResponseEntity<Object>> search(@RequestParam String text,
+                                                            @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                            @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
+                                                            @RequestParam(required = false, defaultValue = "10") @Positive int size) {
         return itemClient.search(text, userId, from, size);
     }
 
     @GetMapping("/{itemId}/comment/search")
-    public ResponseEntity<Object> searchCommentsByText(@PathVariable Long itemId,
-                                                       @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                       @RequestParam @NotBlank String text,
-                                                       @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(required = false, defaultValue = "10") @Positive int size) {
+    public CompletableFuture<ResponseEntity<Object>> searchCommentsByText(@PathVariable Long itemId,
+                                                                          @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                          @RequestParam @NotBlank String text,
+                                                                          @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
+                                                                          @RequestParam(required = false, defaultValue = "10") @Positive int size) {
         return itemClient.searchCommentsByText(text, userId, itemId, from, size);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(@PathVariable Long itemId,
+                                                                     @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                     @RequestParam(required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                     @RequestParam(required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@PathVariable Long itemId,
-                                             @RequestBody @Valid CommentRequestDto dto,
-                                             @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> addComment(@PathVariable Long itemId,
+                                                                @RequestBody @Valid CommentRequestDto dto,
+                                                                @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
         return itemClient.addComment(itemId, dto, userId);
     }
 }
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.item.client.ItemClient;
+import ru.practicum.shareit.item.dto.ItemImportReport;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт вещей из JSON-массива или NDJSON. Записи читаются из тела по одной и проверяются группой
+ * {@link ItemRequestDto.NewItem}; ошибочные попадают в отчёт, остальные уходят на сервер одним запросом.
+ * Сервер возвращает итог по каждой записи, и отклонённые им записи тоже попадают в отчёт с ошибкой.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemImporter {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final int MAX_ROWS = 10_000;
+
+    private final ItemClient itemClient;
+    private final ObjectMapper mapper;
+    private final Validator validator;
+
+    public CompletableFuture<ResponseEntity<Object>> importItems(InputStream body, Long ownerId) {
+        ItemImportReport report = new ItemImportReport();
+        List<ItemImportReport.Row> accepted = new ArrayList<>();
+        List<ItemRequestDto> items = new ArrayList<>();
+        try (MappingIterator<JsonNode> nodes = mapper.readerFor(JsonNode.class).readValues(body)) {
+            while (nodes.hasNextValue()) {
+                if (report.getRows().size() == MAX_ROWS) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            String.format("За один импорт можно добавить не более %s вещей", MAX_ROWS));
+                }
+                ItemImportReport.Row row = new ItemImportReport.Row(report.getRows().size() + 1);
+                report.getRows().add(row);
+                JsonNode node = nodes.nextValue();
+                try {
+                    ItemRequestDto item = mapper.treeToValue(node, ItemRequestDto.class);
+                    List<String> errors = validate(item);
+                    if (errors.isEmpty()) {
+                        accepted.add(row);
+                        items.add(item);
+                    } else {
+                        row.setErrors(errors);
+                    }
+                } catch (JsonProcessingException ex) {
+                    row.setErrors(List.of("Некорректная запись: " + ex.getOriginalMessage()));
+                }
+            }
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Тело импорта не является JSON-массивом или NDJSON", ex);
+        }
+        report.setFailed(report.getRows().size() - accepted.size());
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(report));
+        }
+        return itemClient.importItems(items, ownerId).thenApply(response -> {
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                return response;
+            }
+            JsonNode results = readBody(response.getBody());
+            int imported = 0;
+            for (int i = 0; i < accepted.size(); i++) {
+                JsonNode result = results.get(i);
+                if (result.hasNonNull("error")) {
+                    accepted.get(i).setErrors(List.of(result.get("error").asText()));
+                } else {
+                    accepted.get(i).setId(result.get("id").asLong());
+                    imported++;
+                }
+            }
+            report.setImported(imported);
+            report.setFailed(report.getRows().size() - imported);
+            return ResponseEntity.ok(report);
+        });
+    }
+
+    private List<String> validate(ItemRequestDto item) {
+        return validator.validate(item, ItemRequestDto.NewItem.class).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private JsonNode readBody(Object body) {
+        if (!(body instanceof byte[])) {
+            return mapper.valueToTree(body);
+        }
+        try {
+            return mapper.readTree((byte[]) body);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Некорректный ответ сервера", ex);
+        }
+    }
+}
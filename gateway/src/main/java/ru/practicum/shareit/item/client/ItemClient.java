@@ -1,45 +1,62 @@
 package ru.practicum.shareit.item.client;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.ShareItServerProperties;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
-    @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(ServerConnectionPool pool, ResponseCache cache, ObjectMapper mapper,
+                      ShareItServerProperties server) {
+        super(pool, cache, mapper, server, API_PREFIX);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> addNewItem(ItemRequestDto dto, Long ownerId) {
+        CompletableFuture<ResponseEntity<Object>> response = post("", ownerId, dto);
+        return dto.getRequestId() != null ? evictAfter(response, "/requests/" + dto.getRequestId()) : response;
     }
 
-    public ResponseEntity<Object> addNewItem(ItemRequestDto dto, Long ownerId) {
-        return post("", ownerId, dto);
+    public CompletableFuture<ResponseEntity<Object>> importItems(List<ItemRequestDto> dtos, Long ownerId) {
+        String[] requests = dtos.stream()
+                .map(ItemRequestDto::getRequestId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(requestId -> "/requests/" + requestId)
+                .toArray(String[]::new);
+        CompletableFuture<ResponseEntity<Object>> response = post("/import", ownerId, dtos);
+        return requests.length > 0 ? evictAfter(response, requests) : response;
     }
 
-    public ResponseEntity<Object> updateItem(ItemRequestDto dto, Long ownerId, Long itemId) {
-        return patch("/" + itemId, ownerId, dto);
+    public CompletableFuture<ResponseEntity<Object>> updateItem(ItemRequestDto dto, Long ownerId, Long itemId) {
+        // запрос показывает ответившие на него вещи; id запроса вещи известен только из ответа
+        CompletableFuture<ResponseEntity<Object>> response = evictAfter(patch("/" + itemId, ownerId, dto),
+                API_PREFIX + "/" + itemId);
+        return evictAfter(response, item -> item.hasNonNull("requestId")
+                ? Stream.of("/requests/" + item.get("requestId").asText())
+                : Stream.empty());
     }
 
-    public ResponseEntity<Object> getItemById(Long userId, Long itemId) {
-        return get("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItemById(Long userId, Long itemId) {
+        return getCached("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItemsByOwner(Long userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByOwner(Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -47,7 +64,7 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> search(String text, Long userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> search(String text, Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -56,7 +73,7 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchCommentsByText(String text, Long userId, Long itemId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> searchCommentsByText(String text, Long userId, Long itemId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -65,7 +82,22 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId + "/comment/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> addComment(Long itemId, CommentRequestDto dto, Long userId) {
-        return post("/" + itemId + "/comment", userId, dto);
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(Long userId, Long itemId,
+                                                                     LocalDateTime from, LocalDateTime to) {
+        StringBuilder query = new StringBuilder("/" + itemId + "/availability");
+        Map<String, Object> parameters = new HashMap<>();
+        if (from != null) {
+            query.append("?from={from}");
+            parameters.put("from", from.toString());
+        }
+        if (to != null) {
+            query.append(from != null ? "&" : "?").append("to={to}");
+            parameters.put("to", to.toString());
+        }
+        return get(query.toString(), userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> addComment(Long itemId, CommentRequestDto dto, Long userId) {
+        return evictAfter(post("/" + itemId + "/comment", userId, dto), API_PREFIX + "/" + itemId);
     }
 }
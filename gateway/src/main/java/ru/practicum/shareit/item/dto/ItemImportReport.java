@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог импорта вещей: по строке на каждую запись входа, с id созданной вещи или списком ошибок.
+ */
+@Data
+@NoArgsConstructor
+public class ItemImportReport {
+    private int imported;
+    private int failed;
+    private List<Row> rows = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Row {
+        private int row;
+        private Long id;
+        private List<String> errors;
+
+        public Row(int row) {
+            this.row = row;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
+import javax.validation.constraints.Size;
 
 @Data
 @Builder
@@ -19,8 +20,12 @@ public class ItemRequestDto {
     @Null(groups = {NewItem.class})
     private Long id;
     @NotBlank(message = "Имя вещи не может быть пустым", groups = {NewItem.class})
+    @Size(max = 100, message = "Имя вещи не может быть длиннее 100 символов",
+            groups = {NewItem.class, UpdateItem.class})
     private String name;
     @NotBlank(message = "Поле описания не должно быть пустым", groups = {NewItem.class})
+    @Size(max = 200, message = "Описание вещи не может быть длиннее 200 символов",
+            groups = {NewItem.class, UpdateItem.class})
     private String description;
     @NotNull(message = "Поле доступность к аренде должно присутствовать", groups = {NewItem.class})
     private Boolean available;
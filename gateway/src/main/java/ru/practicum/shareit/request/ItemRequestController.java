@@ -11,6 +11,8 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PositiveOrZero;
 
+import java.util.concurrent.CompletableFuture;
+
 
 @RestController
 @RequestMapping(path = "/requests")
@@ -20,26 +22,26 @@ public class ItemRequestController {
     private final RequestItemClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> addNewRequest(@Valid @RequestBody RequestItemDto request,
-                                                @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+    public CompletableFuture<ResponseEntity<Object>> addNewRequest(@Valid @RequestBody RequestItemDto request,
+                                                                   @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
         return requestClient.addNewRequest(request, ownerId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getRequestsByUserId(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequestsByUserId(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
         return requestClient.getRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                 @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                 @RequestParam(defaultValue = "10") int size) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequests(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                    @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                    @RequestParam(defaultValue = "10") int size) {
         return requestClient.getAllRequests(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                 @PathVariable Long requestId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                    @PathVariable Long requestId) {
         return requestClient.getRequestById(userId, requestId);
     }
 }
@@ -1,40 +1,35 @@
 package ru.practicum.shareit.request.client;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.ShareItServerProperties;
 import ru.practicum.shareit.request.dto.RequestItemDto;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class RequestItemClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
-    @Autowired
-    public RequestItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public RequestItemClient(ServerConnectionPool pool, ResponseCache cache, ObjectMapper mapper,
+                             ShareItServerProperties server) {
+        super(pool, cache, mapper, server, API_PREFIX);
     }
 
-    public ResponseEntity<Object> addNewRequest(RequestItemDto dto, Long ownerId) {
+    public CompletableFuture<ResponseEntity<Object>> addNewRequest(RequestItemDto dto, Long ownerId) {
         return post("", ownerId, dto);
     }
 
-    public ResponseEntity<Object> getRequests(Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequests(Long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequests(Long userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequests(Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -42,7 +37,7 @@ public class RequestItemClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getRequestById(Long userId, Long requestId) {
-        return get("/" + requestId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(Long userId, Long requestId) {
+        return getCached("/" + requestId, userId);
     }
 }
@@ -1,46 +1,44 @@
 package ru.practicum.shareit.user;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.ShareItServerProperties;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
-    @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public UserClient(ServerConnectionPool pool, ResponseCache cache, ObjectMapper mapper,
+                      ShareItServerProperties server) {
+        super(pool, cache, mapper, server, API_PREFIX);
     }
 
-    public ResponseEntity<Object> createUser(UserRequestDto dto) {
+    public CompletableFuture<ResponseEntity<Object>> createUser(UserRequestDto dto) {
         return post("", dto);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> getUserById(Long userId) {
-        return get("/" + userId);
+    public CompletableFuture<ResponseEntity<Object>> getUserById(Long userId) {
+        return getCached("/" + userId, null);
     }
 
-    public ResponseEntity<Object> updateUser(UserRequestDto dto, Long userId) {
-        return patch("/" + userId, dto);
+    public CompletableFuture<ResponseEntity<Object>> updateUser(UserRequestDto dto, Long userId) {
+        // имя пользователя выводится в отзывах вещей
+        return evictAfter(patch("/" + userId, dto), API_PREFIX + "/" + userId, "/items/");
     }
 
-    public ResponseEntity<Object> deleteUser(Long userId) {
-        return delete("/" + userId);
+    public CompletableFuture<ResponseEntity<Object>> deleteUser(Long userId) {
+        // вместе с пользователем удаляются его вещи, брони и запросы
+        return evictAfter(delete("/" + userId), "/");
     }
 }
@@ -6,6 +6,8 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -13,27 +15,27 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> createUser(@RequestBody @Validated(UserRequestDto.NewUser.class) UserRequestDto userRequestDto) {
+    public CompletableFuture<ResponseEntity<Object>> createUser(@RequestBody @Validated(UserRequestDto.NewUser.class) UserRequestDto userRequestDto) {
         return userClient.createUser(userRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         return userClient.getAllUsers();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getUserById(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable Long id) {
         return userClient.getUserById(id);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> updateUser(@RequestBody @Validated(UserRequestDto.UpdateUser.class) UserRequestDto userRequestDto, @PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@RequestBody @Validated(UserRequestDto.UpdateUser.class) UserRequestDto userRequestDto, @PathVariable Long id) {
         return userClient.updateUser(userRequestDto, id);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteUser(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUser(@PathVariable Long id) {
         return userClient.deleteUser(id);
     }
 }
@@ -7,16 +7,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionList;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.booking.dto.ExportFormat;
+import ru.practicum.shareit.booking.dto.State;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = BookingController.class)
 class BookingControllerTest {
@@ -46,6 +57,105 @@ class BookingControllerTest {
         verify(bookingClient, never()).addBooking(anyLong(), any());
     }
 
+    @Test
+    @SneakyThrows
+    void getAllUserBookings_shouldPassServerResponseThrough() {
+        // given
+        when(bookingClient.getAllUserBookings(1L, State.ALL, 0, 10, null))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok()
+                        .header("X-Next-Cursor", "next")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8))));
+        // when
+        MvcResult result = mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        header().string("X-Next-Cursor", "next"),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        content().string("[{\"id\":1}]")
+                );
+    }
+
+    @Test
+    @SneakyThrows
+    void exportOwnerBookings_shouldStreamServerResponse() {
+        // given
+        StreamingResponseBody body = out -> out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+        when(bookingClient.exportOwnerBookings(1L, State.PAST, ExportFormat.CSV))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok()
+                        .header("Content-Disposition", "attachment; filename=bookings.csv")
+                        .body(body)));
+        // when
+        MvcResult result = mvc.perform(get("/bookings/owner/export")
+                        .param("state", "PAST")
+                        .param("format", "CSV")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mvc.perform(asyncDispatch(result))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streamed.getAsyncResult();
+        // then
+        assertThat(streamed.getResponse().getStatus(), is(200));
+        assertThat(streamed.getResponse().getHeader("Content-Disposition"), is("attachment; filename=bookings.csv"));
+        assertThat(streamed.getResponse().getContentAsString(), is("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    @SneakyThrows
+    void exportOwnerBookings_whenFormatIsUnknown() {
+        mvc.perform(get("/bookings/owner/export")
+                        .param("format", "XML")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingClient);
+    }
+
+    @Test
+    @SneakyThrows
+    void approveBookings_shouldPassDecisionsToClient() {
+        // given
+        when(bookingClient.approveBookings(eq(1L), any()))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok().build()));
+        // when
+        MvcResult result = mvc.perform(patch("/bookings/approve")
+                        .content("[{\"bookingId\":5,\"approved\":true},{\"bookingId\":6,\"approved\":false}]")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                // then
+                .andExpect(status().isOk());
+        verify(bookingClient).approveBookings(1L, new BookingDecisionList(List.of(
+                new BookingDecisionDto(5L, true), new BookingDecisionDto(6L, false))));
+    }
+
+    @Test
+    @SneakyThrows
+    void approveBookings_whenDecisionIncomplete() {
+        // when
+        mvc.perform(patch("/bookings/approve")
+                        .content("[{\"bookingId\":5}]")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                // then
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/bookings/approve")
+                        .content("[]")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(bookingClient, never()).approveBookings(anyLong(), any());
+    }
+
     private static BookingRequestDto getBookingRequestDto() {
         return BookingRequestDto.builder()
                 .status(BookingStatus.WAITING)
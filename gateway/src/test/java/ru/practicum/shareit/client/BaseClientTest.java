@@ -0,0 +1,317 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class BaseClientTest {
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+    private TestClient client;
+    private ServerConnectionPool pool;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/test", exchange -> {
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                    + exchange.getRequestHeaders().getFirst("X-Sharer-User-Id") + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/slow")) {
+                sleep();
+            }
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            int status = path.endsWith("/missing") ? 404 : 200;
+            byte[] body = (status == 200 ? "{\"id\":1,\"name\":\"brush\"}" : "{\"error\":\"not found\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-Next-Cursor", "abc");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = client(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void get_shouldPassBodyBytesAndForwardHeaders() throws Exception {
+        // when
+        ResponseEntity<Object> response = client.get("/items?text={text}", 1L, Map.of("text", "a b"))
+                .get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8),
+                is("{\"id\":1,\"name\":\"brush\"}"));
+        assertThat(response.getHeaders().getContentType(), is(MediaType.APPLICATION_JSON));
+        assertThat(response.getHeaders().get("X-Next-Cursor"), is(List.of("abc")));
+        assertThat(response.getHeaders().containsKey("Content-Length"), is(false));
+        assertThat(received.take(), is("GET /test/items?text=a%20b 1 "));
+    }
+
+    @Test
+    void get_shouldParseBody_whenPassthroughDisabled() throws Exception {
+        // given
+        client = client(false);
+        // when
+        ResponseEntity<Object> response = client.get("/items", 1L).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(response.getBody(), is(Map.of("id", 1, "name", "brush")));
+    }
+
+    @Test
+    void post_shouldSendJsonBody() throws Exception {
+        // when
+        client.post("", 2L, Map.of("name", "brush")).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(received.take(), is("POST /test 2 {\"name\":\"brush\"}"));
+    }
+
+    @Test
+    void get_shouldPassErrorStatusAndBody() throws Exception {
+        // when
+        ResponseEntity<Object> response = client.get("/missing").get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8),
+                is("{\"error\":\"not found\"}"));
+    }
+
+    @Test
+    void get_shouldFailWithGatewayTimeout_whenServerIsSlow() {
+        // when
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> client.get("/slow").get(5, TimeUnit.SECONDS));
+        // then
+        assertThat(ex.getCause(), instanceOf(ResponseStatusException.class));
+        assertThat(((ResponseStatusException) ex.getCause()).getStatus(), is(HttpStatus.GATEWAY_TIMEOUT));
+    }
+
+    @Test
+    void requests_shouldNotHoldCallerThread() throws Exception {
+        // when
+        List<CompletableFuture<ResponseEntity<Object>>> responses = List.of(
+                client.get("/slow"), client.get("/slow"), client.get("/slow"));
+        // then
+        assertThat(responses.stream().anyMatch(CompletableFuture::isDone), is(false));
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .handle((v, ex) -> null)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getCached_shouldServeRepeatedReadsFromCache_untilEvicted() throws Exception {
+        // when
+        client.getCached("/1", 1L).get(5, TimeUnit.SECONDS);
+        ResponseEntity<Object> cached = client.getCached("/1", 1L).get(5, TimeUnit.SECONDS);
+        client.getCached("/1", 2L).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(cached.getStatusCode(), is(HttpStatus.OK));
+        assertThat(received.size(), is(2));
+        // when
+        client.evictAfter(client.patch("/1", 1L, Map.of("name", "comb")), "/test/1").get(5, TimeUnit.SECONDS);
+        client.getCached("/1", 1L).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(received.size(), is(4));
+    }
+
+    @Test
+    void evictAfter_shouldEvictResourcesReadFromResponse() throws Exception {
+        // given
+        client.getCached("/1", 1L).get(5, TimeUnit.SECONDS);
+        client.getCached("/2", 1L).get(5, TimeUnit.SECONDS);
+        // when
+        client.evictAfter(client.patch("/approve", 1L, Map.of()),
+                body -> Stream.of("/test/" + body.path("id").asLong())).get(5, TimeUnit.SECONDS);
+        client.getCached("/1", 1L).get(5, TimeUnit.SECONDS);
+        client.getCached("/2", 1L).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(received.size(), is(4));
+    }
+
+    @Test
+    void getCached_shouldNotCacheErrors() throws Exception {
+        // when
+        client.getCached("/missing", 1L).get(5, TimeUnit.SECONDS);
+        client.getCached("/missing", 1L).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(received.size(), is(2));
+    }
+
+    @Test
+    void get_shouldForwardConditionalHeaders_andPassNotModified() throws Exception {
+        // given
+        MockHttpServletRequest incoming = new MockHttpServletRequest();
+        incoming.addHeader("If-None-Match", ETAG);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(incoming));
+        CompletableFuture<ResponseEntity<Object>> request;
+        try {
+            // when
+            request = client.getCached("/1", 1L);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        ResponseEntity<Object> response = request.get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+        assertThat(response.getHeaders().getETag(), is(ETAG));
+        assertThat(response.getBody(), nullValue());
+        assertThat(client.getCached("/1", 1L).get(5, TimeUnit.SECONDS).getStatusCode(), is(HttpStatus.OK));
+    }
+
+    @Test
+    void getStream_shouldPassBodyAsIs_andHoldConnectionUntilWritten() throws Exception {
+        // when
+        ResponseEntity<StreamingResponseBody> response = client.getStream("/export?state={state}", 1L,
+                Map.of("state", "ALL")).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor"), is("abc"));
+        assertThat(pool.active(), is(1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertThat(out.toString(StandardCharsets.UTF_8), is("{\"id\":1,\"name\":\"brush\"}"));
+        assertThat(pool.active(), is(0));
+        assertThat(received.take(), is("GET /test/export?state=ALL 1 "));
+    }
+
+    @Test
+    void getStream_shouldPassErrorStatus() throws Exception {
+        // when
+        ResponseEntity<StreamingResponseBody> response = client.getStream("/missing", 1L, Map.of())
+                .get(5, TimeUnit.SECONDS);
+        response.getBody().writeTo(OutputStream.nullOutputStream());
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+        assertThat(pool.active(), is(0));
+    }
+
+    @Test
+    void getStream_shouldReleaseConnection_whenRequestTimesOutBeforeBodyIsWritten() throws Exception {
+        // given
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ExportController(client)).build();
+        MvcResult result = mvc.perform(get("/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+        assertThat(pool.active(), is(1));
+        MockAsyncContext context = (MockAsyncContext) result.getRequest().getAsyncContext();
+        // when
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onComplete(new AsyncEvent(context));
+        }
+        // then
+        assertThat(pool.active(), is(0));
+    }
+
+    @Test
+    void getStream_shouldWriteBodyWithStreamTimeout() throws Exception {
+        // given
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ExportController(client)).build();
+        MvcResult result = mvc.perform(get("/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // when
+        MvcResult streamed = mvc.perform(asyncDispatch(result))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streamed.getAsyncResult(5000);
+        // then
+        assertThat(streamed.getRequest().getAsyncContext().getTimeout(), is(Duration.ofHours(1).toMillis()));
+        assertThat(streamed.getResponse().getContentAsString(), is("{\"id\":1,\"name\":\"brush\"}"));
+        assertThat(pool.active(), is(0));
+    }
+
+    private TestClient client(boolean passthrough) {
+        ShareItServerProperties properties = new ShareItServerProperties();
+        properties.setUrl("http://localhost:" + server.getAddress().getPort());
+        properties.setResponseTimeout(Duration.ofMillis(300));
+        properties.setPassthrough(passthrough);
+        pool = new ServerConnectionPool(HttpClient.newHttpClient(), properties.getPool());
+        return new TestClient(pool, new ResponseCache(properties.getCache()), new ObjectMapper(), properties);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(ServerConnectionPool pool, ResponseCache cache, ObjectMapper mapper,
+                   ShareItServerProperties server) {
+            super(pool, cache, mapper, server, "/test");
+        }
+    }
+
+    @RestController
+    static class ExportController {
+        private final TestClient client;
+
+        ExportController(TestClient client) {
+            this.client = client;
+        }
+
+        @GetMapping("/export")
+        CompletableFuture<ResponseEntity<StreamingResponseBody>> export() {
+            return client.getStream("/export", 1L, Map.of());
+        }
+    }
+}
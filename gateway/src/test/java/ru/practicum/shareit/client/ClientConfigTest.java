@@ -0,0 +1,23 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ClientConfigTest {
+
+    @Test
+    void asyncTimeout_shouldOutlastAcquireAndResponseTimeouts() {
+        // given
+        ShareItServerProperties properties = new ShareItServerProperties();
+        properties.setResponseTimeout(Duration.ofSeconds(30));
+        properties.getPool().setAcquireTimeout(Duration.ofSeconds(5));
+        // when
+        Duration timeout = ClientConfig.asyncTimeout(properties);
+        // then
+        assertThat(timeout, greaterThan(Duration.ofSeconds(35)));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ResponseCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ResponseCache cache;
+
+    @BeforeEach
+    void init() {
+        ShareItServerProperties.Cache properties = new ShareItServerProperties.Cache();
+        properties.setTtl(Duration.ofSeconds(10));
+        properties.setMaxEntries(2);
+        cache = new ResponseCache(properties, now::get);
+        cache.bindTo(registry);
+    }
+
+    @Test
+    void get_shouldReturnStoredResponse_untilTtlExpires() {
+        // given
+        cache.put("/items/1", 1L, ResponseEntity.ok("item"), cache.version("/items/1"));
+        // when
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        boolean fresh = cache.get("/items/1", 1L).isPresent();
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        boolean expired = cache.get("/items/1", 1L).isEmpty();
+        // then
+        assertThat(fresh, is(true));
+        assertThat(expired, is(true));
+        assertThat(registry.get(ResponseCache.METRIC_PREFIX + "hits").counter().count(), is(1.0));
+        assertThat(registry.get(ResponseCache.METRIC_PREFIX + "misses").counter().count(), is(1.0));
+    }
+
+    @Test
+    void put_shouldEvictBySize_whenFull() {
+        // given
+        cache.put("/items/1", 1L, ResponseEntity.ok("1"), cache.version("/items/1"));
+        cache.put("/items/2", 1L, ResponseEntity.ok("2"), cache.version("/items/2"));
+        // when
+        cache.put("/items/3", 1L, ResponseEntity.ok("3"), cache.version("/items/3"));
+        // then
+        assertThat(cache.size(), is(2L));
+        assertThat(registry.get(ResponseCache.METRIC_PREFIX + "evictions").functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    void evict_shouldRemoveExactResourceOrPrefix() {
+        // given
+        cache.put("/items/1", 1L, ResponseEntity.ok("1"), cache.version("/items/1"));
+        cache.put("/items/11", 1L, ResponseEntity.ok("11"), cache.version("/items/11"));
+        // when
+        cache.evict("/items/1");
+        // then
+        assertThat(cache.get("/items/1", 1L).isPresent(), is(false));
+        assertThat(cache.get("/items/11", 1L).isPresent(), is(true));
+        // when
+        cache.evict("/items/");
+        // then
+        assertThat(cache.get("/items/11", 1L).isPresent(), is(false));
+    }
+
+    @Test
+    void evict_shouldRemoveResponsesOfAllUsers() {
+        // given
+        cache.put("/items/1", 1L, ResponseEntity.ok("1"), cache.version("/items/1"));
+        cache.put("/items/1", 2L, ResponseEntity.ok("1"), cache.version("/items/1"));
+        // when
+        cache.evict("/items/1");
+        // then
+        assertThat(cache.get("/items/1", 1L).isPresent(), is(false));
+        assertThat(cache.get("/items/1", 2L).isPresent(), is(false));
+    }
+
+    @Test
+    void put_shouldSkipResponse_whenEvictedWhileLoading() {
+        // given
+        long version = cache.version("/items/1");
+        cache.evict("/items/1");
+        // when
+        cache.put("/items/1", 1L, ResponseEntity.ok("stale"), version);
+        // then
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    void put_shouldSkipErrorResponses() {
+        // when
+        cache.put("/items/1", 1L, ResponseEntity.notFound().build(), cache.version("/items/1"));
+        // then
+        assertThat(cache.size(), is(0L));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServerConnectionPoolTest {
+    private HttpServer server;
+    private CountDownLatch release;
+    private URI uri;
+
+    @BeforeEach
+    void init() throws IOException {
+        release = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void send_shouldQueueRequests_whenRouteLimitReached() throws Exception {
+        // given
+        ServerConnectionPool pool = pool(1, 10, Duration.ofSeconds(5));
+        // when
+        CompletableFuture<HttpResponse<byte[]>> first = pool.send(request());
+        CompletableFuture<HttpResponse<byte[]>> second = pool.send(request());
+        // then
+        assertThat(pool.active(), is(1));
+        assertThat(pool.pending(), is(1));
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).statusCode(), is(200));
+        assertThat(second.get(5, TimeUnit.SECONDS).statusCode(), is(200));
+        assertThat(pool.active(), is(0));
+        assertThat(pool.pending(), is(0));
+    }
+
+    @Test
+    void send_shouldFailWithTimeout_whenNoConnectionBecomesFree() throws Exception {
+        // given
+        ServerConnectionPool pool = pool(10, 1, Duration.ofMillis(100));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pool.bindTo(registry);
+        CompletableFuture<HttpResponse<byte[]>> first = pool.send(request());
+        // when
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> pool.send(request()).get(5, TimeUnit.SECONDS));
+        // then
+        assertThat(ex.getCause(), instanceOf(TimeoutException.class));
+        assertThat(pool.pending(), is(0));
+        assertThat(registry.get(ServerConnectionPool.METRIC_PREFIX + "acquire.timeouts").counter().count(), is(1.0));
+        assertThat(registry.get(ServerConnectionPool.METRIC_PREFIX + "active").gauge().value(), is(1.0));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(pool.active(), is(0));
+    }
+
+    @Test
+    void sendStreaming_shouldHoldConnection_untilBodyIsClosed() throws Exception {
+        // given
+        ServerConnectionPool pool = pool(1, 10, Duration.ofSeconds(5));
+        release.countDown();
+        HttpResponse<InputStream> first = pool.sendStreaming(request()).get(5, TimeUnit.SECONDS);
+        // when
+        CompletableFuture<HttpResponse<InputStream>> second = pool.sendStreaming(request());
+        // then
+        assertThat(pool.active(), is(1));
+        assertThat(pool.pending(), is(1));
+        first.body().close();
+        first.body().close();
+        second.get(5, TimeUnit.SECONDS).body().close();
+        assertThat(pool.active(), is(0));
+        assertThat(pool.pending(), is(0));
+    }
+
+    @Test
+    void send_shouldReleaseConnection_whenClientThrowsImmediately() {
+        // given
+        HttpClient http = mock(HttpClient.class);
+        when(http.sendAsync(any(), any())).thenThrow(new IllegalArgumentException("bad request"));
+        ServerConnectionPool pool = pool(http, 1, 1, Duration.ofMillis(100));
+        // when
+        ExecutionException first = assertThrows(ExecutionException.class,
+                () -> pool.send(request()).get(5, TimeUnit.SECONDS));
+        ExecutionException second = assertThrows(ExecutionException.class,
+                () -> pool.sendStreaming(request()).get(5, TimeUnit.SECONDS));
+        // then
+        assertThat(first.getCause(), instanceOf(IllegalArgumentException.class));
+        assertThat(second.getCause(), instanceOf(IllegalArgumentException.class));
+        assertThat(pool.active(), is(0));
+        assertThat(pool.pending(), is(0));
+    }
+
+    private ServerConnectionPool pool(int maxPerRoute, int maxTotal, Duration acquireTimeout) {
+        return pool(HttpClient.newHttpClient(), maxPerRoute, maxTotal, acquireTimeout);
+    }
+
+    private ServerConnectionPool pool(HttpClient http, int maxPerRoute, int maxTotal, Duration acquireTimeout) {
+        ShareItServerProperties.Pool properties = new ShareItServerProperties.Pool();
+        properties.setMaxPerRoute(maxPerRoute);
+        properties.setMaxTotal(maxTotal);
+        properties.setAcquireTimeout(acquireTimeout);
+        return new ServerConnectionPool(http, properties);
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(uri).GET().build();
+    }
+}
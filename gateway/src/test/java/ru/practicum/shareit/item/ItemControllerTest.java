@@ -7,15 +7,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.item.client.ItemClient;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
@@ -24,6 +33,8 @@ class ItemControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private ItemClient itemClient;
+    @MockBean
+    private ItemImporter itemImporter;
     @Autowired
     private MockMvc mvc;
 
@@ -42,6 +53,33 @@ class ItemControllerTest {
         verify(itemClient, never()).addComment(anyLong(), any(), anyLong());
     }
 
+    @Test
+    @SneakyThrows
+    void getAvailability_shouldPassPeriodToClient() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        when(itemClient.getAvailability(1L, 2L, from, null))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok().build()));
+
+        MvcResult result = mvc.perform(get("/items/2/availability")
+                        .param("from", "2030-01-01T10:00:00")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        verify(itemClient).getAvailability(1L, 2L, from, null);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAvailability_shouldReturnBadRequest_whenDateIsMalformed() {
+        mvc.perform(get("/items/2/availability")
+                        .param("to", "tomorrow")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isBadRequest());
+        verify(itemClient, never()).getAvailability(anyLong(), anyLong(), any(), any());
+    }
+
     private static CommentRequestDto getCommentRequestDto() {
         return CommentRequestDto.builder()
                 .text("very good")
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.item.client.ItemClient;
+import ru.practicum.shareit.item.dto.ItemImportReport;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ItemImporterTest {
+    private ItemClient itemClient;
+    private ItemImporter importer;
+
+    @BeforeEach
+    void init() {
+        itemClient = mock(ItemClient.class);
+        importer = new ItemImporter(itemClient, Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new ParameterNamesModule()).build(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void importItems_shouldReportInvalidRows_andImportTheRest() throws Exception {
+        // given
+        when(itemClient.importItems(anyList(), anyLong())).thenReturn(CompletableFuture.completedFuture(
+                ResponseEntity.ok("[{\"id\":10},{\"id\":11}]".getBytes(StandardCharsets.UTF_8))));
+        String body = "[{\"name\":\"brush\",\"description\":\"good\",\"available\":true}," +
+                "{\"name\":\"\",\"description\":\"good\",\"available\":true}," +
+                "{\"name\":\"comb\",\"description\":\"good\",\"available\":\"maybe\"}," +
+                "{\"name\":\"saw\",\"description\":\"sharp\",\"available\":false,\"requestId\":3}]";
+        // when
+        ItemImportReport report = report(importer.importItems(stream(body), 1L));
+        // then
+        assertThat(report.getImported(), is(2));
+        assertThat(report.getFailed(), is(2));
+        assertThat(report.getRows(), contains(
+                allOf(hasProperty("row", is(1)), hasProperty("id", is(10L)), hasProperty("errors", nullValue())),
+                allOf(hasProperty("row", is(2)), hasProperty("id", nullValue()),
+                        hasProperty("errors", contains("Имя вещи не может быть пустым"))),
+                allOf(hasProperty("row", is(3)), hasProperty("errors", contains(startsWith("Некорректная запись")))),
+                allOf(hasProperty("row", is(4)), hasProperty("id", is(11L)))));
+        verify(itemClient).importItems(List.of(
+                ItemRequestDto.builder().name("brush").description("good").available(true).build(),
+                ItemRequestDto.builder().name("saw").description("sharp").available(false).requestId(3L).build()), 1L);
+    }
+
+    @Test
+    void importItems_shouldReadNdjson() throws Exception {
+        // given
+        when(itemClient.importItems(anyList(), anyLong())).thenReturn(CompletableFuture.completedFuture(
+                ResponseEntity.ok("[{\"id\":10},{\"id\":11}]".getBytes(StandardCharsets.UTF_8))));
+        String body = "{\"name\":\"brush\",\"description\":\"good\",\"available\":true}\n" +
+                "{\"name\":\"comb\",\"description\":\"good\",\"available\":true}\n";
+        // when
+        ItemImportReport report = report(importer.importItems(stream(body), 1L));
+        // then
+        assertThat(report.getImported(), is(2));
+        assertThat(report.getRows(), hasSize(2));
+    }
+
+    @Test
+    void importItems_shouldRejectTooLongFields() throws Exception {
+        // given
+        String body = "[{\"name\":\"" + "n".repeat(101) + "\",\"description\":\"good\",\"available\":true}," +
+                "{\"name\":\"brush\",\"description\":\"" + "d".repeat(201) + "\",\"available\":true}]";
+        // when
+        ItemImportReport report = report(importer.importItems(stream(body), 1L));
+        // then
+        assertThat(report.getFailed(), is(2));
+        assertThat(report.getRows(), contains(
+                hasProperty("errors", contains("Имя вещи не может быть длиннее 100 символов")),
+                hasProperty("errors", contains("Описание вещи не может быть длиннее 200 символов"))));
+        verifyNoInteractions(itemClient);
+    }
+
+    @Test
+    void importItems_shouldReportRowsRejectedByServer() throws Exception {
+        // given
+        when(itemClient.importItems(anyList(), anyLong())).thenReturn(CompletableFuture.completedFuture(
+                ResponseEntity.ok("[{\"id\":10},{\"error\":\"Имя вещи не может быть пустым\"}]"
+                        .getBytes(StandardCharsets.UTF_8))));
+        String body = "[{\"name\":\"brush\",\"description\":\"good\",\"available\":true}," +
+                "{\"name\":\"comb\",\"description\":\"good\",\"available\":true}]";
+        // when
+        ItemImportReport report = report(importer.importItems(stream(body), 1L));
+        // then
+        assertThat(report.getImported(), is(1));
+        assertThat(report.getFailed(), is(1));
+        assertThat(report.getRows(), contains(
+                allOf(hasProperty("id", is(10L)), hasProperty("errors", nullValue())),
+                allOf(hasProperty("id", nullValue()), hasProperty("errors", contains("Имя вещи не может быть пустым")))));
+    }
+
+    @Test
+    void importItems_shouldNotCallServer_whenNoValidRows() throws Exception {
+        // when
+        ItemImportReport report = report(importer.importItems(stream("[{\"name\":\"brush\"}]"), 1L));
+        // then
+        assertThat(report.getImported(), is(0));
+        assertThat(report.getFailed(), is(1));
+        verifyNoInteractions(itemClient);
+    }
+
+    @Test
+    void importItems_shouldPassServerError() throws Exception {
+        // given
+        when(itemClient.importItems(anyList(), anyLong())).thenReturn(CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.NOT_FOUND).build()));
+        // when
+        ResponseEntity<Object> response = importer.importItems(
+                stream("[{\"name\":\"brush\",\"description\":\"good\",\"available\":true}]"), 100L)
+                .get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void importItems_shouldRejectMalformedBody() {
+        // when
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> importer.importItems(stream("[{\"name\":"), 1L));
+        // then
+        assertThat(ex.getStatus(), is(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(itemClient);
+    }
+
+    private static ItemImportReport report(CompletableFuture<ResponseEntity<Object>> response) throws Exception {
+        return (ItemImportReport) response.get(5, TimeUnit.SECONDS).getBody();
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,19 +1,30 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.GetBookingRequest;
 import ru.practicum.shareit.booking.service.BookingService;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
 public class BookingController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingServiceImpl;
+    private final ObjectMapper mapper;
 
     @PostMapping
     public BookingResponseDto addBooking(@RequestBody BookingRequestDto dto, @RequestHeader("X-Sharer-User-Id") Long userId) {
@@ -32,19 +43,54 @@ public class BookingController {
         return bookingServiceImpl.approveBooking(bookingId, approved, ownerId);
     }
 
+    @PatchMapping("/approve")
+    public List<BookingDecisionResultDto> approveBookings(@RequestBody List<BookingDecisionDto> decisions,
+                                                          @RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        return bookingServiceImpl.approveBookings(decisions, ownerId);
+    }
+
     @GetMapping
-    public List<BookingResponseDto> getAllUserBookings(@RequestParam(defaultValue = "ALL") State state,
-                                                       @RequestHeader("X-Sharer-User-Id") Long userId,
-                                                       @RequestParam(required = false, defaultValue = "0") int from,
-                                                       @RequestParam(required = false, defaultValue = "10") int size) {
-        return bookingServiceImpl.getAllUserBookings(GetBookingRequest.of(state, userId, false, from, size));
+    public ResponseEntity<List<BookingResponseDto>> getAllUserBookings(@RequestParam(defaultValue = "ALL") State state,
+                                                                       @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                       @RequestParam(required = false, defaultValue = "0") int from,
+                                                                       @RequestParam(required = false, defaultValue = "10") int size,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       WebRequest webRequest) {
+        return getBookings(GetBookingRequest.of(state, userId, false, from, size, cursor), webRequest);
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getAllUserItemBookings(@RequestParam(defaultValue = "ALL") State state,
-                                                           @RequestHeader("X-Sharer-User-Id") Long userId,
-                                                           @RequestParam(required = false, defaultValue = "0") int from,
-                                                           @RequestParam(required = false, defaultValue = "10") int size) {
-        return bookingServiceImpl.getAllUserBookings(GetBookingRequest.of(state, userId, true, from, size));
+    public ResponseEntity<List<BookingResponseDto>> getAllUserItemBookings(@RequestParam(defaultValue = "ALL") State state,
+                                                                           @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                           @RequestParam(required = false, defaultValue = "0") int from,
+                                                                           @RequestParam(required = false, defaultValue = "10") int size,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           WebRequest webRequest) {
+        return getBookings(GetBookingRequest.of(state, userId, true, from, size, cursor), webRequest);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportOwnerBookings(@RequestParam(defaultValue = "ALL") State state,
+                                    @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                    @RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                    HttpServletResponse response) throws IOException {
+        BookingExportWriter writer = new BookingExportWriter(response, format, mapper);
+        bookingServiceImpl.exportOwnerBookings(ownerId, state, writer);
+        writer.finish();
+    }
+
+    private ResponseEntity<List<BookingResponseDto>> getBookings(GetBookingRequest request, WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingServiceImpl.getAllUserBookingsTag(request))) {
+            return null;
+        }
+        return withNextCursor(bookingServiceImpl.getAllUserBookings(request), request.getSize());
+    }
+
+    private static ResponseEntity<List<BookingResponseDto>> withNextCursor(List<BookingResponseDto> bookings, int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (bookings.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.after(bookings.get(size - 1)).encode());
+        }
+        return response.body(bookings);
     }
 }
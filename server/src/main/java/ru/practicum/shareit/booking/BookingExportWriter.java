@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Пишет брони в тело ответа по одной строке на бронь. Заголовки выставляются при первой строке,
+ * так что ошибка до неё ещё может уйти обычным ответом с кодом ошибки.
+ */
+class BookingExportWriter implements Consumer<BookingResponseDto> {
+    static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId,bookerName\n";
+
+    private final HttpServletResponse response;
+    private final ExportFormat format;
+    private final ObjectMapper mapper;
+    private OutputStream out;
+
+    BookingExportWriter(HttpServletResponse response, ExportFormat format, ObjectMapper mapper) {
+        this.response = response;
+        this.format = format;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void accept(BookingResponseDto booking) {
+        try {
+            start();
+            if (format == ExportFormat.CSV) {
+                out.write(toCsv(booking).getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(mapper.writeValueAsBytes(booking));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void finish() throws IOException {
+        start();
+        out.flush();
+    }
+
+    private void start() throws IOException {
+        if (out != null) {
+            return;
+        }
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                String.format("attachment; filename=bookings.%s", format.getExtension()));
+        out = response.getOutputStream();
+        if (format == ExportFormat.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String toCsv(BookingResponseDto booking) {
+        return String.join(",",
+                String.valueOf(booking.getId()),
+                String.valueOf(booking.getStartDate()),
+                String.valueOf(booking.getEndDate()),
+                String.valueOf(booking.getStatus()),
+                String.valueOf(booking.getItem().getId()),
+                quote(booking.getItem().getName()),
+                String.valueOf(booking.getBooker().getId()),
+                quote(booking.getBooker().getName())) + "\n";
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -1,30 +1,93 @@
 package ru.practicum.shareit.booking.dao;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingShort;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long>, QuerydslPredicateExecutor<Booking> {
+    String SELECT_RESPONSE = "select new ru.practicum.shareit.booking.dto.BookingResponseDto(" +
+            "b.id, b.startDate, b.endDate, b.status, i.id, i.name, i.description, i.available, r.id, bk.id, bk.name) " +
+            "from Booking as b " +
+            "join b.item as i " +
+            "join b.booker as bk " +
+            "left join i.request as r ";
+    String OF_BOOKER = "where bk.id = :userId ";
+    String OF_OWNER = "where i.owner.id = :userId ";
+    String FUTURE = "AND b.startDate > :cur ";
+    String PAST = "AND b.endDate < :cur ";
+    String CURRENT = "AND b.startDate <= :cur AND b.endDate > :cur ";
+    String WITH_STATUS = "AND b.status = :status ";
+    /**
+     * Продолжение выдачи после курсора; у первой страницы своё условие не нужно, поэтому у каждой выдачи
+     * два запроса — первая страница и страница после курсора.
+     */
+    String BEFORE_CURSOR = "AND (b.startDate < :beforeStart OR (b.startDate = :beforeStart AND b.id < :beforeId)) ";
+    String NEWEST_FIRST = "order by b.startDate DESC, b.id DESC";
+    String EXPORT_FETCH_SIZE = "500";
+
     @Query("select b from Booking as b " +
             "join  b.item as i " +
             "join  b.booker as bk " +
             "where b.id = ?1 AND (bk.id = ?2 OR i.owner.id = ?2)")
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Optional<Booking> findBooking(Long bookingId, Long userId);
 
     @Query("select b from Booking as b " +
             "join b.item as i " +
             "join b.booker as bk " +
             "where b.id = ?1 AND i.owner.id = ?2")
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Optional<Booking> findBookingByOwner(Long bookingId, Long ownerId);
 
+    @Query("select new ru.practicum.shareit.booking.dto.BookingPeriod(b.id, b.item.id, b.startDate, b.endDate) " +
+            "from Booking as b where b.status in :statuses AND b.endDate > :after")
+    List<BookingPeriod> findPeriodsEndingAfter(@Param("statuses") Collection<BookingStatus> statuses,
+                                               @Param("after") LocalDateTime after);
+
+    /**
+     * Брони владельца из списка с блокировкой строк до конца транзакции пакетного подтверждения.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b " +
+            "where b.id in :ids AND b.item.id in (select i.id from Item as i where i.owner.id = :ownerId)")
+    List<Booking> findAllByIdsAndOwnerForUpdate(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
+
+    /**
+     * Меняет статус ожидающих броней владельца одним UPDATE; updated_at выставляется явно,
+     * так как массовое обновление идёт мимо {@code @UpdateTimestamp}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking as b set b.status = :status, b.updatedAt = :now " +
+            "where b.id in :ids AND b.status = ru.practicum.shareit.booking.BookingStatus.WAITING " +
+            "AND b.item.id in (select i.id from Item as i where i.owner.id = :ownerId)")
+    int updateWaitingStatus(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId,
+                            @Param("status") BookingStatus status, @Param("now") LocalDateTime now);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Optional<Booking> findFirstByBooker_IdAndItem_IdAndEndDateBefore(Long bookerId, Long itemId, LocalDateTime cur);
 
+    boolean existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(Long itemId, Collection<BookingStatus> statuses,
+                                                                       LocalDateTime end, LocalDateTime start);
+
     @Query(value = "SELECT * FROM bookings as bk " +
             "JOIN items as i ON bk.item_id=i.id " +
             "JOIN users as u ON bk.booker_id=u.id " +
@@ -45,5 +108,182 @@ public interface BookingRepository extends JpaRepository<Booking, Long>, Queryds
             "LIMIT 1", nativeQuery = true)
     Optional<Booking> findNextBookingByItemId(@Param("id") Long id, @Param("cur") LocalDateTime cur);
 
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     List<Booking> findAllByItem_IdIn(List<Long> ids);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + NEWEST_FIRST)
+    List<BookingResponseDto> findByBooker(@Param("userId") Long userId,
+                                          Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findByBookerBefore(@Param("userId") Long userId,
+                                                @Param("beforeStart") LocalDateTime beforeStart,
+                                                @Param("beforeId") Long beforeId,
+                                                Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + FUTURE + NEWEST_FIRST)
+    List<BookingResponseDto> findFutureByBooker(@Param("userId") Long userId,
+                                                @Param("cur") LocalDateTime cur,
+                                                Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + FUTURE + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findFutureByBookerBefore(@Param("userId") Long userId,
+                                                      @Param("cur") LocalDateTime cur,
+                                                      @Param("beforeStart") LocalDateTime beforeStart,
+                                                      @Param("beforeId") Long beforeId,
+                                                      Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + PAST + NEWEST_FIRST)
+    List<BookingResponseDto> findPastByBooker(@Param("userId") Long userId,
+                                              @Param("cur") LocalDateTime cur,
+                                              Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + PAST + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findPastByBookerBefore(@Param("userId") Long userId,
+                                                    @Param("cur") LocalDateTime cur,
+                                                    @Param("beforeStart") LocalDateTime beforeStart,
+                                                    @Param("beforeId") Long beforeId,
+                                                    Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + CURRENT + NEWEST_FIRST)
+    List<BookingResponseDto> findCurrentByBooker(@Param("userId") Long userId,
+                                                 @Param("cur") LocalDateTime cur,
+                                                 Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + CURRENT + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findCurrentByBookerBefore(@Param("userId") Long userId,
+                                                       @Param("cur") LocalDateTime cur,
+                                                       @Param("beforeStart") LocalDateTime beforeStart,
+                                                       @Param("beforeId") Long beforeId,
+                                                       Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + WITH_STATUS + NEWEST_FIRST)
+    List<BookingResponseDto> findByBookerAndStatus(@Param("userId") Long userId,
+                                                   @Param("status") BookingStatus status,
+                                                   Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_BOOKER + WITH_STATUS + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findByBookerAndStatusBefore(@Param("userId") Long userId,
+                                                         @Param("status") BookingStatus status,
+                                                         @Param("beforeStart") LocalDateTime beforeStart,
+                                                         @Param("beforeId") Long beforeId,
+                                                         Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + NEWEST_FIRST)
+    List<BookingResponseDto> findByOwner(@Param("userId") Long userId,
+                                         Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findByOwnerBefore(@Param("userId") Long userId,
+                                               @Param("beforeStart") LocalDateTime beforeStart,
+                                               @Param("beforeId") Long beforeId,
+                                               Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + FUTURE + NEWEST_FIRST)
+    List<BookingResponseDto> findFutureByOwner(@Param("userId") Long userId,
+                                               @Param("cur") LocalDateTime cur,
+                                               Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + FUTURE + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findFutureByOwnerBefore(@Param("userId") Long userId,
+                                                     @Param("cur") LocalDateTime cur,
+                                                     @Param("beforeStart") LocalDateTime beforeStart,
+                                                     @Param("beforeId") Long beforeId,
+                                                     Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + PAST + NEWEST_FIRST)
+    List<BookingResponseDto> findPastByOwner(@Param("userId") Long userId,
+                                             @Param("cur") LocalDateTime cur,
+                                             Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + PAST + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findPastByOwnerBefore(@Param("userId") Long userId,
+                                                   @Param("cur") LocalDateTime cur,
+                                                   @Param("beforeStart") LocalDateTime beforeStart,
+                                                   @Param("beforeId") Long beforeId,
+                                                   Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + CURRENT + NEWEST_FIRST)
+    List<BookingResponseDto> findCurrentByOwner(@Param("userId") Long userId,
+                                                @Param("cur") LocalDateTime cur,
+                                                Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + CURRENT + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findCurrentByOwnerBefore(@Param("userId") Long userId,
+                                                      @Param("cur") LocalDateTime cur,
+                                                      @Param("beforeStart") LocalDateTime beforeStart,
+                                                      @Param("beforeId") Long beforeId,
+                                                      Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + WITH_STATUS + NEWEST_FIRST)
+    List<BookingResponseDto> findByOwnerAndStatus(@Param("userId") Long userId,
+                                                  @Param("status") BookingStatus status,
+                                                  Pageable page);
+
+    @Query(SELECT_RESPONSE + OF_OWNER + WITH_STATUS + BEFORE_CURSOR + NEWEST_FIRST)
+    List<BookingResponseDto> findByOwnerAndStatusBefore(@Param("userId") Long userId,
+                                                        @Param("status") BookingStatus status,
+                                                        @Param("beforeStart") LocalDateTime beforeStart,
+                                                        @Param("beforeId") Long beforeId,
+                                                        Pageable page);
+
+    /**
+     * Выгрузка всей истории броней владельца: строки читаются курсором JDBC порциями по {@link #EXPORT_FETCH_SIZE},
+     * DTO не попадают в контекст сохранения. Поток закрывается вызывающим, внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + OF_OWNER + NEWEST_FIRST)
+    Stream<BookingResponseDto> streamByOwner(@Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + OF_OWNER + FUTURE + NEWEST_FIRST)
+    Stream<BookingResponseDto> streamFutureByOwner(@Param("userId") Long userId,
+                                                   @Param("cur") LocalDateTime cur);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + OF_OWNER + PAST + NEWEST_FIRST)
+    Stream<BookingResponseDto> streamPastByOwner(@Param("userId") Long userId,
+                                                 @Param("cur") LocalDateTime cur);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + OF_OWNER + CURRENT + NEWEST_FIRST)
+    Stream<BookingResponseDto> streamCurrentByOwner(@Param("userId") Long userId,
+                                                    @Param("cur") LocalDateTime cur);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + OF_OWNER + WITH_STATUS + NEWEST_FIRST)
+    Stream<BookingResponseDto> streamByOwnerAndStatus(@Param("userId") Long userId,
+                                                      @Param("status") BookingStatus status);
+
+    @Query(value = "SELECT n.item_id AS itemId, n.id AS id, n.booker_id AS bookerId, " +
+            "n.start_date AS startDate, n.end_date AS endDate, TRUE AS next " +
+            "FROM (SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date ASC) AS rn " +
+            "FROM bookings AS b WHERE b.item_id IN (:ids) AND b.start_date > :cur) AS n " +
+            "WHERE n.rn = 1 " +
+            "UNION ALL " +
+            "SELECT l.item_id AS itemId, l.id AS id, l.booker_id AS bookerId, " +
+            "l.start_date AS startDate, l.end_date AS endDate, FALSE AS next " +
+            "FROM (SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date DESC) AS rn " +
+            "FROM bookings AS b WHERE b.item_id IN (:ids) AND b.start_date < :cur) AS l " +
+            "WHERE l.rn = 1", nativeQuery = true)
+    List<ItemBookingShort> findNextAndLastByItemIds(@Param("ids") List<Long> ids, @Param("cur") LocalDateTime cur);
+
+    String VERSION = "SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(b.updated_at) AS VARCHAR), '') || '|' || " +
+            "COUNT(CASE WHEN b.start_date < :cur THEN 1 END) || '|' || " +
+            "COUNT(CASE WHEN b.end_date < :cur THEN 1 END) || '|' || " +
+            "COALESCE(CAST(MAX(i.updated_at) AS VARCHAR), '') || '|' || " +
+            "COALESCE(CAST(MAX(u.updated_at) AS VARCHAR), '') " +
+            "FROM bookings AS b " +
+            "JOIN items AS i ON i.id = b.item_id " +
+            "JOIN users AS u ON u.id = b.booker_id ";
+
+    /**
+     * Версия выдачи броней арендатора: меняется при изменении броней, вещей в них и арендатора,
+     * а также при начале и окончании брони, от которых зависят состояния CURRENT, PAST и FUTURE.
+     */
+    @Query(value = VERSION + "WHERE b.booker_id = :userId", nativeQuery = true)
+    String findBookerVersion(@Param("userId") Long userId, @Param("cur") LocalDateTime cur);
+
+    @Query(value = VERSION + "WHERE i.owner_id = :userId", nativeQuery = true)
+    String findOwnerVersion(@Param("userId") Long userId, @Param("cur") LocalDateTime cur);
 }
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Позиция в выдаче броней, отсортированной по (startDate DESC, id DESC).
+ * Для клиента это непрозрачная строка.
+ */
+@Value
+public class BookingCursor {
+    private static final String SEPARATOR = "_";
+
+    LocalDateTime startDate;
+    Long id;
+
+    public static BookingCursor after(BookingResponseDto booking) {
+        return new BookingCursor(booking.getStartDate(), booking.getId());
+    }
+
+    public String encode() {
+        String raw = startDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор: " + cursor);
+        }
+    }
+}
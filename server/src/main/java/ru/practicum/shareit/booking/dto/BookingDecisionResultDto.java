@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
+
+/**
+ * Итог пакетного подтверждения по одной брони; {@code status} — статус брони после запроса,
+ * {@code itemId} — вещь найденной брони: по нему шлюз сбрасывает закэшированную вещь.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecisionResultDto {
+    public enum Outcome {
+        UPDATED,
+        ALREADY_DECIDED,
+        NOT_FOUND
+    }
+
+    private Long bookingId;
+    private BookingStatus status;
+    private Outcome outcome;
+    private Long itemId;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Период, на который бронь занимает вещь: [startDate, endDate).
+ */
+@Value
+public class BookingPeriod {
+    Long id;
+    Long itemId;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import ru.practicum.shareit.booking.BookingStatus;
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class BookingResponseDto {
     private Long id;
     @JsonProperty("start")
@@ -20,4 +22,25 @@ public class BookingResponseDto {
     private ItemShortDto item;
     private UserShortResponseDto booker;
     private BookingStatus status;
+
+    /**
+     * Для выборки броней конструктором в JPQL, без загрузки сущностей.
+     */
+    public BookingResponseDto(Long id, LocalDateTime startDate, LocalDateTime endDate, BookingStatus status,
+                              Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                              Long itemRequestId, Long bookerId, String bookerName) {
+        this(id, startDate, endDate,
+                ItemShortDto.builder()
+                        .id(itemId)
+                        .name(itemName)
+                        .description(itemDescription)
+                        .available(itemAvailable)
+                        .requestId(itemRequestId)
+                        .build(),
+                UserShortResponseDto.builder()
+                        .id(bookerId)
+                        .name(bookerName)
+                        .build(),
+                status);
+    }
 }
@@ -12,6 +12,7 @@ public class GetBookingRequest {
     private boolean isOwner;
     private int from;
     private int size;
+    private BookingCursor cursor;
 
     public static GetBookingRequest of(State state, Long userId, boolean isOwner,
                                        int from, int size) {
@@ -23,4 +24,14 @@ public class GetBookingRequest {
         request.setFrom(from > 0 ? from / size : 0);
         return request;
     }
+
+    public static GetBookingRequest of(State state, Long userId, boolean isOwner,
+                                       int from, int size, String cursor) {
+        GetBookingRequest request = of(state, userId, isOwner, from, size);
+        if (cursor != null && !cursor.isBlank()) {
+            request.setCursor(BookingCursor.decode(cursor));
+            request.setFrom(0);
+        }
+        return request;
+    }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+public interface ItemBookingShort {
+    Long getItemId();
+
+    Long getId();
+
+    Long getBookerId();
+
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+
+    Boolean getNext();
+}
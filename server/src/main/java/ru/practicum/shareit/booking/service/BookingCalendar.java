@@ -0,0 +1,180 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Занятость вещей в памяти: свободные окна вещи считаются без запроса к БД.
+ * По каждой вещи хранится массив ожидающих и подтверждённых броней, отсортированный по началу,
+ * с нарастающим максимумом окончаний: первая бронь, задевающая окно, находится бинарным поиском.
+ * Массив не меняется, а заменяется целиком при записи, поэтому чтение идёт без блокировок.
+ * При старте загружаются незакончившиеся брони; закончившиеся отбрасываются при следующей записи по вещи.
+ * Изменения применяются после коммита и поддерживаются {@link BookingServiceImpl};
+ * брони, изменённые другим экземпляром сервера, здесь не видны до перезапуска.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingCalendar {
+    static final List<BookingStatus> BUSY_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        rebuild();
+    }
+
+    /**
+     * Свободные окна вещи внутри [from, to), по возрастанию.
+     */
+    public List<AvailabilityWindowDto> freeWindows(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return timelines.getOrDefault(itemId, Timeline.EMPTY).freeWindows(from, to);
+    }
+
+    /**
+     * Учитывает бронь в её текущем статусе: ожидающая и подтверждённая занимают вещь, остальные нет.
+     */
+    public void update(Booking booking) {
+        BookingPeriod period = new BookingPeriod(booking.getId(), booking.getItem().getId(),
+                booking.getStartDate(), booking.getEndDate());
+        boolean busy = BUSY_STATUSES.contains(booking.getStatus());
+        TransactionHooks.afterCommit(() -> {
+            if (busy) {
+                put(period);
+            } else {
+                remove(period.getItemId(), period.getId());
+            }
+        });
+    }
+
+    public void release(Long itemId, Long bookingId) {
+        TransactionHooks.afterCommit(() -> remove(itemId, bookingId));
+    }
+
+    /**
+     * Перечитывает занятость из БД, когда брони удалены мимо сервиса (каскадом при удалении пользователя).
+     */
+    public void reload() {
+        TransactionHooks.afterCommit(this::rebuild);
+    }
+
+    private synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<BookingPeriod>> periods = bookingRepository.findPeriodsEndingAfter(BUSY_STATUSES, now).stream()
+                .collect(Collectors.groupingBy(BookingPeriod::getItemId));
+        timelines.keySet().retainAll(periods.keySet());
+        periods.forEach((itemId, itemPeriods) -> timelines.put(itemId, Timeline.of(itemPeriods)));
+        log.info("Загружена занятость вещей: {} вещей, {} броней", periods.size(),
+                periods.values().stream().mapToInt(List::size).sum());
+    }
+
+    private synchronized void put(BookingPeriod period) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingPeriod> periods = timelines.getOrDefault(period.getItemId(), Timeline.EMPTY).current(now);
+        periods.removeIf(existing -> existing.getId().equals(period.getId()));
+        if (period.getEndDate().isAfter(now)) {
+            periods.add(period);
+        }
+        replace(period.getItemId(), periods);
+    }
+
+    private synchronized void remove(Long itemId, Long bookingId) {
+        Timeline timeline = timelines.get(itemId);
+        if (timeline == null) {
+            return;
+        }
+        List<BookingPeriod> periods = timeline.current(LocalDateTime.now());
+        periods.removeIf(existing -> existing.getId().equals(bookingId));
+        replace(itemId, periods);
+    }
+
+    private void replace(Long itemId, List<BookingPeriod> periods) {
+        if (periods.isEmpty()) {
+            timelines.remove(itemId);
+        } else {
+            timelines.put(itemId, Timeline.of(periods));
+        }
+    }
+
+    private static final class Timeline {
+        static final Timeline EMPTY = of(Collections.emptyList());
+
+        private final BookingPeriod[] periods;
+        // maxEnds[i] — самое позднее окончание среди periods[0..i]: не убывает, по нему идёт бинарный поиск
+        private final LocalDateTime[] maxEnds;
+
+        private Timeline(BookingPeriod[] periods) {
+            this.periods = periods;
+            this.maxEnds = new LocalDateTime[periods.length];
+            for (int i = 0; i < periods.length; i++) {
+                LocalDateTime end = periods[i].getEndDate();
+                maxEnds[i] = i > 0 && maxEnds[i - 1].isAfter(end) ? maxEnds[i - 1] : end;
+            }
+        }
+
+        static Timeline of(Collection<BookingPeriod> periods) {
+            BookingPeriod[] sorted = periods.toArray(new BookingPeriod[0]);
+            Arrays.sort(sorted, Comparator.comparing(BookingPeriod::getStartDate).thenComparing(BookingPeriod::getId));
+            return new Timeline(sorted);
+        }
+
+        List<BookingPeriod> current(LocalDateTime now) {
+            List<BookingPeriod> current = new ArrayList<>(periods.length + 1);
+            for (BookingPeriod period : periods) {
+                if (period.getEndDate().isAfter(now)) {
+                    current.add(period);
+                }
+            }
+            return current;
+        }
+
+        List<AvailabilityWindowDto> freeWindows(LocalDateTime from, LocalDateTime to) {
+            List<AvailabilityWindowDto> windows = new ArrayList<>();
+            LocalDateTime free = from;
+            for (int i = firstEndingAfter(from); i < periods.length && periods[i].getStartDate().isBefore(to); i++) {
+                BookingPeriod period = periods[i];
+                if (!period.getEndDate().isAfter(free)) {
+                    continue;
+                }
+                if (period.getStartDate().isAfter(free)) {
+                    windows.add(new AvailabilityWindowDto(free, period.getStartDate()));
+                }
+                free = period.getEndDate();
+                if (!free.isBefore(to)) {
+                    return windows;
+                }
+            }
+            windows.add(new AvailabilityWindowDto(free, to));
+            return windows;
+        }
+
+        private int firstEndingAfter(LocalDateTime from) {
+            int low = 0;
+            int high = maxEnds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (maxEnds[mid].isAfter(from)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
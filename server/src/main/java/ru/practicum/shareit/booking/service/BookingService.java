@@ -1,10 +1,14 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.State;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.GetBookingRequest;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingResponseDto addBooking(BookingRequestDto dto, Long userId);
@@ -13,5 +17,18 @@ public interface BookingService {
 
     BookingResponseDto approveBooking(Long bookingId, Boolean approved, Long ownerId);
 
+    List<BookingDecisionResultDto> approveBookings(List<BookingDecisionDto> decisions, Long ownerId);
+
     List<BookingResponseDto> getAllUserBookings(GetBookingRequest request);
+
+    /**
+     * ETag выдачи броней арендатора или владельца: вычисляется одним запросом, без сборки самой выдачи.
+     */
+    String getAllUserBookingsTag(GetBookingRequest request);
+
+    /**
+     * Передаёт в {@code sink} все брони вещей владельца в состоянии {@code state}, новые первыми,
+     * по мере чтения из БД.
+     */
+    void exportOwnerBookings(Long ownerId, State state, Consumer<BookingResponseDto> sink);
 }
@@ -1,11 +1,10 @@
 package ru.practicum.shareit.booking.service;
 
-import com.querydsl.core.types.ExpressionUtils;
-import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +12,9 @@ import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.State;
 import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.GetBookingRequest;
@@ -23,20 +25,30 @@ import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.KnownUsers;
+import ru.practicum.shareit.utils.EntityTag;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import static ru.practicum.shareit.booking.model.QBooking.booking;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
+    static final String OVERLAP_CONSTRAINT = "bookings_no_overlap";
+    private static final List<BookingStatus> BLOCKING_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final KnownUsers knownUsers;
+    private final BookingCalendar bookingCalendar;
 
     @Transactional
     public BookingResponseDto addBooking(BookingRequestDto dto, Long userId) {
@@ -48,12 +60,31 @@ public class BookingServiceImpl implements BookingService {
         }
         User user = userRepository.findById(userId).orElseThrow(() ->
                 new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", userId)));
-        if (item.getOwner().equals(user)) {
+        if (item.getOwner().getId().equals(user.getId())) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Бронь для владельца вещи недоступна");
         }
+        if (bookingRepository.existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(item.getId(),
+                BLOCKING_STATUSES, dto.getEndDate(), dto.getStartDate())) {
+            throw overlapException(item.getId());
+        }
         Booking booking = BookingMapper.dtoToBooking(dto, item, user);
 
-        return BookingMapper.toResponseDto(bookingRepository.save(booking));
+        try {
+            Booking saved = bookingRepository.save(booking);
+            bookingCalendar.update(saved);
+            return BookingMapper.toResponseDto(saved);
+        } catch (DataIntegrityViolationException ex) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            if (cause != null && cause.contains(OVERLAP_CONSTRAINT)) {
+                throw overlapException(item.getId());
+            }
+            throw ex;
+        }
+    }
+
+    private static BookingConflictException overlapException(Long itemId) {
+        return new BookingConflictException(
+                String.format("Вещь с id: %s уже забронирована на указанный период", itemId));
     }
 
     public BookingResponseDto getBookingById(Long bookingId, Long userId) {
@@ -73,7 +104,65 @@ public class BookingServiceImpl implements BookingService {
         } else {
             booking.setStatus(BookingStatus.REJECTED);
         }
-        return BookingMapper.toResponseDto(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        bookingCalendar.update(saved);
+        return BookingMapper.toResponseDto(saved);
+    }
+
+    /**
+     * Пакетное подтверждение: брони владельца блокируются одним запросом, статусы меняются
+     * не более чем двумя UPDATE (подтверждение и отказ) только у ожидающих броней.
+     */
+    @Transactional
+    public List<BookingDecisionResultDto> approveBookings(List<BookingDecisionDto> decisions, Long ownerId) {
+        Map<Long, Boolean> approvedById = new LinkedHashMap<>();
+        for (BookingDecisionDto decision : decisions) {
+            if (decision.getBookingId() == null || decision.getApproved() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не указана бронь или решение по ней");
+            }
+            if (approvedById.put(decision.getBookingId(), decision.getApproved()) != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        String.format("Бронь с id: %s указана несколько раз", decision.getBookingId()));
+            }
+        }
+        if (approvedById.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Booking> bookings = bookingRepository.findAllByIdsAndOwnerForUpdate(approvedById.keySet(), ownerId)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> booking));
+        Map<Long, BookingStatus> current = bookings.values().stream()
+                .collect(Collectors.toMap(Booking::getId, Booking::getStatus));
+        Map<Boolean, List<Long>> waiting = approvedById.entrySet().stream()
+                .filter(decision -> current.get(decision.getKey()) == BookingStatus.WAITING)
+                .collect(Collectors.partitioningBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        LocalDateTime now = LocalDateTime.now();
+        if (!waiting.get(true).isEmpty()) {
+            bookingRepository.updateWaitingStatus(waiting.get(true), ownerId, BookingStatus.APPROVED, now);
+        }
+        if (!waiting.get(false).isEmpty()) {
+            bookingRepository.updateWaitingStatus(waiting.get(false), ownerId, BookingStatus.REJECTED, now);
+            waiting.get(false).forEach(id -> bookingCalendar.release(bookings.get(id).getItem().getId(), id));
+        }
+        return approvedById.entrySet().stream()
+                .map(decision -> decisionResult(decision.getKey(), decision.getValue(), bookings.get(decision.getKey()),
+                        current.get(decision.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    private static BookingDecisionResultDto decisionResult(Long bookingId, boolean approved, Booking booking,
+                                                           BookingStatus status) {
+        if (booking == null) {
+            return new BookingDecisionResultDto(bookingId, null, BookingDecisionResultDto.Outcome.NOT_FOUND, null);
+        }
+        Long itemId = booking.getItem().getId();
+        if (status != BookingStatus.WAITING) {
+            return new BookingDecisionResultDto(bookingId, status, BookingDecisionResultDto.Outcome.ALREADY_DECIDED,
+                    itemId);
+        }
+        return new BookingDecisionResultDto(bookingId, approved ? BookingStatus.APPROVED : BookingStatus.REJECTED,
+                BookingDecisionResultDto.Outcome.UPDATED, itemId);
     }
 
     private void checkAlreadyApproved(Booking booking) {
@@ -85,43 +174,145 @@ public class BookingServiceImpl implements BookingService {
     }
 
     public List<BookingResponseDto> getAllUserBookings(GetBookingRequest request) {
-        List<Predicate> predicates = new ArrayList<>();
+        List<BookingResponseDto> dtos = request.isOwner() ? findByOwner(request) : findByBooker(request);
+
+        if (dtos.isEmpty() && request.getCursor() == null)
+            throw new BookingNotFoundException(String.format("Пользователь с id : %s не имеет брони", request.getUserId()));
+
+        return dtos;
+    }
+
+    public String getAllUserBookingsTag(GetBookingRequest request) {
+        Long userId = request.getUserId();
         LocalDateTime curTime = LocalDateTime.now();
-        if (request.isOwner()) {
-            predicates.add(booking.item.owner.id.eq(request.getUserId()));
-        } else {
-            predicates.add(booking.booker.id.eq(request.getUserId()));
+        String version = request.isOwner()
+                ? bookingRepository.findOwnerVersion(userId, curTime)
+                : bookingRepository.findBookerVersion(userId, curTime);
+        return EntityTag.of(userId, request.isOwner(), version);
+    }
+
+    /**
+     * Строки идут в {@code sink} прямо из курсора, поэтому память не зависит от размера истории.
+     * Поток держит соединение открытым, пока {@code sink} пишет ответ.
+     */
+    public void exportOwnerBookings(Long ownerId, State state, Consumer<BookingResponseDto> sink) {
+        knownUsers.requireExists(ownerId);
+        try (Stream<BookingResponseDto> bookings = streamByOwner(ownerId, state)) {
+            bookings.forEach(sink);
         }
-        switch (request.getState()) {
+    }
+
+    private Stream<BookingResponseDto> streamByOwner(Long ownerId, State state) {
+        LocalDateTime curTime = LocalDateTime.now();
+        switch (state) {
             case ALL:
-                break;
+                return bookingRepository.streamByOwner(ownerId);
             case FUTURE:
-                predicates.add(booking.startDate.after(curTime));
-                break;
+                return bookingRepository.streamFutureByOwner(ownerId, curTime);
             case PAST:
-                predicates.add(booking.endDate.before(curTime));
-                break;
+                return bookingRepository.streamPastByOwner(ownerId, curTime);
             case CURRENT:
-                predicates.add(booking.startDate.loe(curTime)
-                        .and(booking.endDate.gt(curTime)));
-                break;
+                return bookingRepository.streamCurrentByOwner(ownerId, curTime);
             case REJECTED:
-                predicates.add(booking.status.eq(BookingStatus.REJECTED));
-                break;
+                return bookingRepository.streamByOwnerAndStatus(ownerId, BookingStatus.REJECTED);
             case WAITING:
-                predicates.add(booking.status.eq(BookingStatus.WAITING));
-                break;
+                return bookingRepository.streamByOwnerAndStatus(ownerId, BookingStatus.WAITING);
             default:
                 throw new UnknownStateException(State.UNSUPPORTED_STATUS.name());
         }
-        Pageable page = PageRequest.of(request.getFrom(), request.getSize(),
-                Sort.by(Sort.Direction.DESC, "startDate"));
-        List<BookingResponseDto> dtos = BookingMapper.toResponseDto(
-                bookingRepository.findAll(ExpressionUtils.allOf(predicates), page));
+    }
 
-        if (dtos.isEmpty())
-            throw new BookingNotFoundException(String.format("Пользователь с id : %s не имеет брони", request.getUserId()));
+    /**
+     * Первая страница выбирается запросом без условия курсора, следующие — запросом с ним:
+     * у каждого запроса свой план, и оба идут поиском по индексу.
+     */
+    private List<BookingResponseDto> findByBooker(GetBookingRequest request) {
+        Long userId = request.getUserId();
+        LocalDateTime curTime = LocalDateTime.now();
+        Pageable page = PageRequest.of(request.getFrom(), request.getSize());
+        BookingCursor cursor = request.getCursor();
+        if (cursor == null) {
+            switch (request.getState()) {
+                case ALL:
+                    return bookingRepository.findByBooker(userId, page);
+                case FUTURE:
+                    return bookingRepository.findFutureByBooker(userId, curTime, page);
+                case PAST:
+                    return bookingRepository.findPastByBooker(userId, curTime, page);
+                case CURRENT:
+                    return bookingRepository.findCurrentByBooker(userId, curTime, page);
+                case REJECTED:
+                    return bookingRepository.findByBookerAndStatus(userId, BookingStatus.REJECTED, page);
+                case WAITING:
+                    return bookingRepository.findByBookerAndStatus(userId, BookingStatus.WAITING, page);
+                default:
+                    throw new UnknownStateException(State.UNSUPPORTED_STATUS.name());
+            }
+        }
+        LocalDateTime beforeStart = cursor.getStartDate();
+        Long beforeId = cursor.getId();
+        switch (request.getState()) {
+            case ALL:
+                return bookingRepository.findByBookerBefore(userId, beforeStart, beforeId, page);
+            case FUTURE:
+                return bookingRepository.findFutureByBookerBefore(userId, curTime, beforeStart, beforeId, page);
+            case PAST:
+                return bookingRepository.findPastByBookerBefore(userId, curTime, beforeStart, beforeId, page);
+            case CURRENT:
+                return bookingRepository.findCurrentByBookerBefore(userId, curTime, beforeStart, beforeId, page);
+            case REJECTED:
+                return bookingRepository.findByBookerAndStatusBefore(userId, BookingStatus.REJECTED,
+                        beforeStart, beforeId, page);
+            case WAITING:
+                return bookingRepository.findByBookerAndStatusBefore(userId, BookingStatus.WAITING,
+                        beforeStart, beforeId, page);
+            default:
+                throw new UnknownStateException(State.UNSUPPORTED_STATUS.name());
+        }
+    }
 
-        return dtos;
+    private List<BookingResponseDto> findByOwner(GetBookingRequest request) {
+        Long userId = request.getUserId();
+        LocalDateTime curTime = LocalDateTime.now();
+        Pageable page = PageRequest.of(request.getFrom(), request.getSize());
+        BookingCursor cursor = request.getCursor();
+        if (cursor == null) {
+            switch (request.getState()) {
+                case ALL:
+                    return bookingRepository.findByOwner(userId, page);
+                case FUTURE:
+                    return bookingRepository.findFutureByOwner(userId, curTime, page);
+                case PAST:
+                    return bookingRepository.findPastByOwner(userId, curTime, page);
+                case CURRENT:
+                    return bookingRepository.findCurrentByOwner(userId, curTime, page);
+                case REJECTED:
+                    return bookingRepository.findByOwnerAndStatus(userId, BookingStatus.REJECTED, page);
+                case WAITING:
+                    return bookingRepository.findByOwnerAndStatus(userId, BookingStatus.WAITING, page);
+                default:
+                    throw new UnknownStateException(State.UNSUPPORTED_STATUS.name());
+            }
+        }
+        LocalDateTime beforeStart = cursor.getStartDate();
+        Long beforeId = cursor.getId();
+        switch (request.getState()) {
+            case ALL:
+                return bookingRepository.findByOwnerBefore(userId, beforeStart, beforeId, page);
+            case FUTURE:
+                return bookingRepository.findFutureByOwnerBefore(userId, curTime, beforeStart, beforeId, page);
+            case PAST:
+                return bookingRepository.findPastByOwnerBefore(userId, curTime, beforeStart, beforeId, page);
+            case CURRENT:
+                return bookingRepository.findCurrentByOwnerBefore(userId, curTime, beforeStart, beforeId, page);
+            case REJECTED:
+                return bookingRepository.findByOwnerAndStatusBefore(userId, BookingStatus.REJECTED,
+                        beforeStart, beforeId, page);
+            case WAITING:
+                return bookingRepository.findByOwnerAndStatusBefore(userId, BookingStatus.WAITING,
+                        beforeStart, beforeId, page);
+            default:
+                throw new UnknownStateException(State.UNSUPPORTED_STATUS.name());
+        }
     }
 }
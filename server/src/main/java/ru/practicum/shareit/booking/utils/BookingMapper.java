@@ -4,6 +4,7 @@ import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingShort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.utils.ItemMapper;
@@ -52,4 +53,13 @@ public class BookingMapper {
                 .end(booking.getEndDate())
                 .build();
     }
+
+    public static BookingShortDto toShortDto(ItemBookingShort booking) {
+        return BookingShortDto.builder()
+                .id(booking.getId())
+                .bookerId(booking.getBookerId())
+                .start(booking.getStartDate())
+                .end(booking.getEndDate())
+                .build();
+    }
 }
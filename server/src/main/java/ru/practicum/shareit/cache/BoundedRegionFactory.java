@@ -0,0 +1,69 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальный кэш второго уровня Hibernate: каждый регион — {@link BoundedStorageAccess} на Caffeine
+ * с пределом из свойства {@value #MAX_ENTRIES}. Регион меток времени не ограничивается: вытеснение
+ * метки сделало бы кэш запросов некорректным.
+ * Хранилища принадлежат своей фабрике сессий, в отличие от hibernate-jcache, где все фабрики JVM
+ * делят один {@code CacheManager} и его кэши по именам регионов.
+ */
+public class BoundedRegionFactory extends RegionFactoryTemplate {
+    public static final String MAX_ENTRIES = "hibernate.cache.bounded.max_entries";
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final Map<String, BoundedStorageAccess> storages = new ConcurrentHashMap<>();
+    private int maxEntries;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, @SuppressWarnings("rawtypes") Map configValues) {
+        maxEntries = ConfigurationHelper.getInt(MAX_ENTRIES, configValues, DEFAULT_MAX_ENTRIES);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        storages.values().forEach(BoundedStorageAccess::release);
+        storages.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName(), maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, Long.MAX_VALUE);
+    }
+
+    /**
+     * Хранилища по именам регионов — для статистики вытеснений и заполненности.
+     */
+    public Map<String, BoundedStorageAccess> getStorages() {
+        return Collections.unmodifiableMap(storages);
+    }
+
+    private BoundedStorageAccess storage(String regionName, long limit) {
+        return storages.computeIfAbsent(regionName, name -> new BoundedStorageAccess(limit));
+    }
+}
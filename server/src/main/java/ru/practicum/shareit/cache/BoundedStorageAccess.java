@@ -0,0 +1,68 @@
+package ru.practicum.shareit.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Хранилище одного региона кэша второго уровня на Caffeine: не больше {@code maxEntries} записей,
+ * при переполнении вытесняются редко читаемые. Чтение не берёт блокировку, поэтому обращения
+ * к региону из разных сессий не выстраиваются в очередь.
+ */
+public class BoundedStorageAccess implements DomainDataStorageAccess {
+    private final Cache<Object, Object> entries;
+
+    BoundedStorageAccess(long maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return entries.getIfPresent(key);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        if (value == null) {
+            entries.invalidate(key);
+            return;
+        }
+        entries.put(key, value);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return entries.asMap().containsKey(key);
+    }
+
+    @Override
+    public void evictData() {
+        entries.invalidateAll();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        entries.invalidate(key);
+    }
+
+    @Override
+    public void release() {
+        entries.invalidateAll();
+        entries.cleanUp();
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Записи, вытесненные при переполнении региона.
+     */
+    public long evictions() {
+        return entries.stats().evictionCount();
+    }
+}
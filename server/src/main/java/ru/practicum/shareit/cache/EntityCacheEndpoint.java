@@ -0,0 +1,60 @@
+package ru.practicum.shareit.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/entitycache}: попадания, промахи, записи и вытеснения по регионам кэша второго уровня.
+ * Попадания, промахи и записи считает Hibernate, только если задано
+ * {@code spring.jpa.properties.hibernate.generate_statistics=true}: сбор статистики стоит на каждом
+ * обращении к БД, поэтому по умолчанию выключен, и эти поля в ответе отсутствуют.
+ */
+@Component
+@Endpoint(id = "entitycache")
+@RequiredArgsConstructor
+public class EntityCacheEndpoint {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, RegionStatistics> regions() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        RegionFactory regionFactory = sessionFactory.getCache().getRegionFactory();
+        Map<String, RegionStatistics> result = new TreeMap<>();
+        if (!(regionFactory instanceof BoundedRegionFactory)) {
+            return result;
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        ((BoundedRegionFactory) regionFactory).getStorages().forEach((region, storage) -> {
+            CacheRegionStatistics regionStatistics = statistics.isStatisticsEnabled()
+                    ? statistics.getCacheRegionStatistics(region)
+                    : null;
+            result.put(region, regionStatistics != null
+                    ? new RegionStatistics(regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(), storage.evictions(), storage.size())
+                    : new RegionStatistics(null, null, null, storage.evictions(), storage.size()));
+        });
+        return result;
+    }
+
+    @Value
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RegionStatistics {
+        Long hits;
+        Long misses;
+        Long puts;
+        long evictions;
+        long size;
+    }
+}
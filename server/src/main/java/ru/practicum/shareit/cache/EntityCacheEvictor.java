@@ -0,0 +1,38 @@
+package ru.practicum.shareit.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Явный сброс сущностей из кэша второго уровня. Внутри транзакции сброс откладывается до её фиксации:
+ * иначе параллельное чтение успело бы положить в кэш ещё не изменённую строку.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evict(Class<?> entity, Object id) {
+        TransactionHooks.afterCommit(() -> cache().evict(entity, id));
+    }
+
+    /**
+     * Сбрасывает регионы целиком — для изменений, сделанных самой БД, например каскадного удаления.
+     */
+    public void evictAll(Class<?>... entities) {
+        TransactionHooks.afterCommit(() -> {
+            Cache cache = cache();
+            for (Class<?> entity : entities) {
+                cache.evict(entity);
+            }
+        });
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache();
+    }
+}
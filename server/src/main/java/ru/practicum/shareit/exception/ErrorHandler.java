@@ -33,6 +33,13 @@ public class ErrorHandler {
         return Map.of("Ошибка запроса", ex.getMessage());
     }
 
+    @ExceptionHandler(BookingConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleConflictException(final RuntimeException ex) {
+        log.warn("Ошибка запроса: {}", ex.getMessage());
+        return Map.of("Ошибка запроса", ex.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleValidationEx(final MethodArgumentNotValidException ex) {
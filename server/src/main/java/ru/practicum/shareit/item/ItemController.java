@@ -1,10 +1,15 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +24,12 @@ public class ItemController {
         return itemServiceImpl.addNewItem(itemRequestDto, ownerId);
     }
 
+    @PostMapping("/import")
+    public List<ItemImportResultDto> importItems(@RequestBody List<ItemRequestDto> itemRequestDtos,
+                                                 @RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        return itemServiceImpl.importItems(itemRequestDtos, ownerId);
+    }
+
     @PatchMapping("/{id}")
     public ItemShortDto updateItem(@RequestBody ItemRequestDto itemRequestDto,
                                    @RequestHeader("X-Sharer-User-Id") Long ownerId,
@@ -36,7 +47,11 @@ public class ItemController {
     @GetMapping
     public List<ItemResponseDto> getItemsByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                  @RequestParam(required = false, defaultValue = "0") int from,
-                                                 @RequestParam(required = false, defaultValue = "10") int size) {
+                                                 @RequestParam(required = false, defaultValue = "10") int size,
+                                                 WebRequest webRequest) {
+        if (webRequest.checkNotModified(itemServiceImpl.getItemsByOwnerTag(userId))) {
+            return null;
+        }
         return itemServiceImpl.getItemsByOwner(userId, from, size);
     }
 
@@ -57,10 +72,24 @@ public class ItemController {
         return itemServiceImpl.searchCommentsByText(GetSearchItem.of(text, userId, itemId, from, size));
     }
 
+    @GetMapping("/{itemId}/availability")
+    public List<AvailabilityWindowDto> getAvailability(@PathVariable Long itemId,
+                                                       @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                       @RequestParam(required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                       @RequestParam(required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemServiceImpl.getAvailability(userId, itemId, from, to);
+    }
+
+    /**
+     * 202, если отзыв принят в очередь и ещё не записан (shareit.comments.ingestion=queue).
+     */
     @PostMapping("/{itemId}/comment")
-    public CommentResponseDto addComment(@PathVariable Long itemId,
-                                         @RequestBody CommentRequestDto dto,
-                                         @RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemServiceImpl.addComment(itemId, dto, userId);
+    public ResponseEntity<CommentResponseDto> addComment(@PathVariable Long itemId,
+                                                         @RequestBody CommentRequestDto dto,
+                                                         @RequestHeader("X-Sharer-User-Id") Long userId) {
+        CommentResponseDto comment = itemServiceImpl.addComment(itemId, dto, userId);
+        return ResponseEntity.status(comment.getId() != null ? HttpStatus.OK : HttpStatus.ACCEPTED).body(comment);
     }
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.comment;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "shareit.comments.queue")
+public class CommentQueueProperties {
+    /**
+     * Сколько отзывов может ждать записи; сверх этого запрос получает 429.
+     */
+    private int capacity = 10_000;
+    /**
+     * Отзывов в одной транзакции фоновой записи; совпадает с hibernate.jdbc.batch_size.
+     */
+    private int batchSize = 50;
+    /**
+     * Журнал принятых отзывов: после перезапуска из него дописываются не записанные в БД.
+     */
+    private Path log = Path.of("data", "comments-queue.log");
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.comment;
+
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.model.Comment;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Запись проверенного отзыва. Реализация выбирается свойством {@code shareit.comments.ingestion}.
+ */
+public interface CommentWriter {
+    /**
+     * @return записанный отзыв; без id, если запись отложена
+     */
+    CommentResponseDto write(Comment comment);
+
+    /**
+     * Отзывы автора о вещи, принятые, но ещё не записанные в БД, — чтобы автор сразу видел свой отзыв.
+     */
+    default List<CommentResponseDto> findPending(Long authorId, Long itemId) {
+        return Collections.emptyList();
+    }
+}
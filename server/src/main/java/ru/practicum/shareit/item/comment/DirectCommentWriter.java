@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.comment;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dao.CommentRepository;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.utils.CommentMapper;
+
+/**
+ * Записывает отзыв сразу, в транзакции запроса.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.comments.ingestion", havingValue = "direct", matchIfMissing = true)
+public class DirectCommentWriter implements CommentWriter {
+    private final CommentRepository commentRepository;
+
+    @Override
+    public CommentResponseDto write(Comment comment) {
+        return CommentMapper.toResponseDto(commentRepository.save(comment));
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.comment;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Принятый отзыв в очереди и в журнале; {@code seq} задаёт порядок записи.
+ */
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
+public class PendingComment {
+    long seq;
+    Long itemId;
+    Long authorId;
+    String authorName;
+    String text;
+    LocalDateTime created;
+
+    CommentResponseDto toResponseDto() {
+        return CommentResponseDto.builder()
+                .text(text)
+                .authorName(authorName)
+                .created(created)
+                .build();
+    }
+}
@@ -0,0 +1,338 @@
+package ru.practicum.shareit.item.comment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.item.dao.CommentRepository;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись отзывов: запрос только дописывает отзыв в журнал и очередь,
+ * фоновый поток записывает очередь пачками по {@code batchSize} в одной транзакции.
+ * Отзыв попадает в журнал после фиксации транзакции запроса: откаченный запрос не оставляет отзыва.
+ * <p>
+ * Строки журнала сбрасываются на диск групповой фиксацией: один поток вызывает {@code force}
+ * за все строки, дописанные к этому моменту, остальные ждут его и повторно не сбрасывают.
+ * В очередь отзывы попадают только после сброса и в порядке {@code seq}.
+ * <p>
+ * Журнал — строки JSON: принятые отзывы и отметки {@code {"written": seq}} после записи пачки.
+ * Когда очередь пустеет, журнал обрезается. При старте отзывы после последней отметки,
+ * которых ещё нет в БД, снова ставятся в очередь. Пока отзыв не записан, автор видит его
+ * через {@link #findPending}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.comments.ingestion", havingValue = "queue")
+@EnableConfigurationProperties(CommentQueueProperties.class)
+public class QueuedCommentWriter implements CommentWriter {
+    private static final String WRITTEN = "written";
+    private static final long RETRY_DELAY_MS = 1_000;
+
+    private final CommentRepository commentRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper mapper;
+    private final CommentQueueProperties properties;
+    private final BlockingQueue<PendingComment> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, Queue<PendingComment>> pendingByItem = new ConcurrentHashMap<>();
+    // порядок seq в журнале и очереди, проверка ёмкости и обрезка журнала — под одной блокировкой
+    private final Object journalLock = new Object();
+    // дописаны в журнал, но ещё не сброшены на диск; под journalLock
+    private final List<PendingComment> unsynced = new ArrayList<>();
+    // один сброс журнала на группу строк; порядок блокировок: syncLock, затем journalLock
+    private final Object syncLock = new Object();
+    private FileChannel journal;
+    private long seq;
+    private long synced;
+    private Thread writer;
+
+    public QueuedCommentWriter(CommentRepository commentRepository, ItemRepository itemRepository,
+                               UserRepository userRepository, PlatformTransactionManager transactionManager,
+                               ObjectMapper mapper, CommentQueueProperties properties) {
+        this.commentRepository = commentRepository;
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mapper = mapper;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Path path = properties.getLog().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        List<PendingComment> unwritten = replay(path);
+        journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        unwritten.forEach(this::enqueue);
+        log.info("Журнал отзывов {}: к записи {}", path, unwritten.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writer = new Thread(this::drain, "comment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(5_000);
+        }
+        synchronized (journalLock) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public CommentResponseDto write(Comment comment) {
+        checkCapacity();
+        PendingComment pending = PendingComment.builder()
+                .itemId(comment.getItem().getId())
+                .authorId(comment.getAuthor().getId())
+                .authorName(comment.getAuthor().getName())
+                .text(comment.getText())
+                // точность БД: записанный отзыв совпадает с ожидающим, см. ItemServiceImpl.getItemById
+                .created(comment.getCreated().truncatedTo(ChronoUnit.MICROS))
+                .build();
+        TransactionHooks.afterCommit(() -> accept(pending));
+        return pending.toResponseDto();
+    }
+    @Override
+    public List<CommentResponseDto> findPending(Long authorId, Long itemId) {
+        Queue<PendingComment> pending = pendingByItem.get(itemId);
+        if (pending == null) {
+            return Collections.emptyList();
+        }
+        return pending.stream()
+                .filter(comment -> comment.getAuthorId().equals(authorId))
+                .map(PendingComment::toResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    private void checkCapacity() {
+        synchronized (journalLock) {
+            if (queue.size() + unsynced.size() >= properties.getCapacity()) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Слишком много отзывов ожидают записи, повторите позже");
+            }
+        }
+    }
+
+    private void accept(PendingComment comment) {
+        PendingComment pending;
+        synchronized (journalLock) {
+            pending = comment.toBuilder().seq(++seq).build();
+            try {
+                writeLine(mapper.writeValueAsBytes(pending));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Не удалось записать отзыв в журнал", ex);
+            }
+            unsynced.add(pending);
+        }
+        sync(pending.getSeq());
+    }
+
+    /**
+     * Сбрасывает журнал до строки {@code upTo} включительно. Если пока поток ждал блокировку,
+     * другой поток уже сбросил журнал дальше этой строки, второй сброс не нужен.
+     */
+    private void sync(long upTo) {
+        synchronized (syncLock) {
+            if (synced >= upTo) {
+                return;
+            }
+            List<PendingComment> group;
+            synchronized (journalLock) {
+                group = new ArrayList<>(unsynced);
+            }
+            try {
+                journal.force(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Не удалось записать отзыв в журнал", ex);
+            }
+            synchronized (journalLock) {
+                unsynced.subList(0, group.size()).clear();
+                group.forEach(this::enqueue);
+            }
+            synced = group.get(group.size() - 1).getSeq();
+        }
+    }
+
+    private void enqueue(PendingComment pending) {
+        pendingByItem.compute(pending.getItemId(), (id, comments) -> {
+            Queue<PendingComment> result = comments != null ? comments : new ConcurrentLinkedQueue<>();
+            result.add(pending);
+            return result;
+        });
+        queue.add(pending);
+    }
+
+    private void drain() {
+        List<PendingComment> batch = new ArrayList<>(properties.getBatchSize());
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                saveWithRetry(batch);
+                written(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            // незаписанная пачка остаётся в журнале и будет записана после перезапуска
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Пачка не пропускается, пока её нельзя записать (например, БД недоступна):
+     * иначе отметка следующей пачки в журнале скрыла бы её от повторной записи.
+     */
+    private void saveWithRetry(List<PendingComment> batch) throws InterruptedException {
+        while (true) {
+            try {
+                save(batch);
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Пакет из {} отзывов не записан, повтор через {} мс", batch.size(), RETRY_DELAY_MS, ex);
+                Thread.sleep(RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private void save(List<PendingComment> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> commentRepository.saveAll(batch.stream()
+                    .map(this::toComment)
+                    .collect(Collectors.toList())));
+        } catch (DataIntegrityViolationException ex) {
+            // вещь или автор удалены после приёма отзыва: отбрасываются только такие отзывы
+            log.warn("Пакет из {} отзывов не записан, запись по одному: {}", batch.size(), ex.getMessage());
+            for (PendingComment pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> commentRepository.save(toComment(pending)));
+                } catch (DataIntegrityViolationException singleEx) {
+                    log.warn("Отзыв {} отброшен: {}", pending, singleEx.getMessage());
+                }
+            }
+        }
+    }
+
+    private void written(List<PendingComment> batch) {
+        for (PendingComment pending : batch) {
+            pendingByItem.computeIfPresent(pending.getItemId(), (id, comments) -> {
+                comments.remove(pending);
+                return comments.isEmpty() ? null : comments;
+            });
+        }
+        synchronized (journalLock) {
+            try {
+                if (queue.isEmpty() && unsynced.isEmpty()) {
+                    journal.truncate(0);
+                } else {
+                    appendLine(mapper.writeValueAsBytes(Map.of(WRITTEN, batch.get(batch.size() - 1).getSeq())));
+                }
+            } catch (IOException ex) {
+                // без отметки пачка при старте сверяется с БД и не записывается повторно
+                log.warn("Не удалось отметить записанные отзывы в журнале: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private Comment toComment(PendingComment pending) {
+        return Comment.builder()
+                .text(pending.getText())
+                .created(pending.getCreated())
+                .item(itemRepository.getReferenceById(pending.getItemId()))
+                .author(userRepository.getReferenceById(pending.getAuthorId()))
+                .build();
+    }
+
+    private void appendLine(byte[] line) throws IOException {
+        writeLine(line);
+        journal.force(false);
+    }
+
+    private void writeLine(byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+    }
+
+    private List<PendingComment> replay(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return Collections.emptyList();
+        }
+        List<PendingComment> accepted = new ArrayList<>();
+        long written = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = mapper.readTree(line);
+                if (node.has(WRITTEN)) {
+                    written = Math.max(written, node.get(WRITTEN).asLong());
+                } else {
+                    accepted.add(mapper.treeToValue(node, PendingComment.class));
+                }
+            } catch (JsonProcessingException ex) {
+                // строка, дописанная не до конца при остановке
+                log.warn("Пропущена повреждённая строка журнала отзывов: {}", line);
+            }
+        }
+        long lastWritten = written;
+        seq = accepted.stream().mapToLong(PendingComment::getSeq).max().orElse(0);
+        return accepted.stream()
+                .filter(pending -> pending.getSeq() > lastWritten)
+                .filter(pending -> !commentRepository.existsByAuthor_IdAndItem_IdAndCreated(
+                        pending.getAuthorId(), pending.getItemId(), pending.getCreated()))
+                .collect(Collectors.toList());
+    }
+}
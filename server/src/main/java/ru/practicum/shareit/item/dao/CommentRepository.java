@@ -1,21 +1,36 @@
 package ru.practicum.shareit.item.dao;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long>, QuerydslPredicateExecutor<Comment> {
+    @EntityGraph(Comment.WITH_AUTHOR)
     List<Comment> findAllByItem_IdOrderByCreatedDesc(Long itemId);
 
+    boolean existsByAuthor_IdAndItem_IdAndCreated(Long authorId, Long itemId, LocalDateTime created);
+
+    @EntityGraph(Comment.WITH_AUTHOR)
     List<Comment> findAllByItemIdIn(List<Long> ids);
 
+    @Query("select new ru.practicum.shareit.item.dto.CommentResponseDto(c.id, c.text, a.name, c.created) " +
+            "from Comment as c " +
+            "JOIN c.author as a " +
+            "where c.item.id = ?1 " +
+            "order by c.created DESC")
+    List<CommentResponseDto> findResponseDtoByItemId(Long itemId);
+
     @Query("select c from Comment as c " +
             "JOIN c.item as i " +
             "where i.id=?1 AND LOWER(c.text) LIKE LOWER(concat('%',?2,'%')) " +
             "order by c.created DESC")
+    @EntityGraph(Comment.WITH_AUTHOR)
     List<Comment> searchByText(Long itemId, String text, Pageable page);
 }
@@ -3,16 +3,82 @@ package ru.practicum.shareit.item.dao;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDetails;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwner_Id(Long ownerId, Pageable page);
 
+    List<Item> findAllByRequest_IdIn(Collection<Long> requestIds);
+
     @Query("select i from Item as i " +
             "where (LOWER(i.name) LIKE LOWER(concat('%',?1, '%')) " +
             "or LOWER(i.description) LIKE LOWER(concat('%',?1, '%'))) " +
-            "AND i.available = true")
+            "AND i.available = true " +
+            "order by case when LOWER(i.name) LIKE LOWER(concat(?1, '%')) then 0 " +
+            "when LOWER(i.name) LIKE LOWER(concat('%',?1, '%')) then 1 " +
+            "else 2 end, i.id")
     List<Item> searchItemsByNameOrDescription(String text, Pageable page);
+
+    @Query(value = "SELECT * FROM items AS i " +
+            "WHERE (i.name ILIKE concat('%', ?1, '%') OR i.description ILIKE concat('%', ?1, '%')) " +
+            "AND i.available = true " +
+            "ORDER BY GREATEST(similarity(i.name, ?1), similarity(COALESCE(i.description, ''), ?1)) DESC, i.id",
+            nativeQuery = true)
+    List<Item> searchItemsByTrigram(String text, Pageable page);
+
+    @Query("select i.id as id, i.owner.id as ownerId, i.name as name, i.description as description " +
+            "from Item as i where i.available = true")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemSearchRow> streamAvailable();
+
+    @Query(value = "SELECT i.id AS id, i.name AS name, i.description AS description, i.available AS available, " +
+            "EXISTS(SELECT 1 FROM users AS u WHERE u.id = :userId) AS userExists, " +
+            "nb.id AS nextBookingId, nb.booker_id AS nextBookerId, " +
+            "nb.start_date AS nextStart, nb.end_date AS nextEnd, " +
+            "lb.id AS lastBookingId, lb.booker_id AS lastBookerId, " +
+            "lb.start_date AS lastStart, lb.end_date AS lastEnd " +
+            "FROM items AS i " +
+            "LEFT JOIN bookings AS nb ON i.owner_id = :userId AND nb.id = (" +
+            "SELECT b.id FROM bookings AS b " +
+            "WHERE b.item_id = i.id AND b.start_date > :cur " +
+            "AND b.status NOT IN('REJECTED', 'CANCELLED') " +
+            "ORDER BY b.start_date ASC LIMIT 1) " +
+            "LEFT JOIN bookings AS lb ON i.owner_id = :userId AND lb.id = (" +
+            "SELECT b.id FROM bookings AS b " +
+            "WHERE b.item_id = i.id AND b.start_date <= :cur " +
+            "AND b.status NOT IN('REJECTED', 'CANCELLED') " +
+            "ORDER BY b.start_date DESC LIMIT 1) " +
+            "WHERE i.id = :itemId", nativeQuery = true)
+    Optional<ItemDetails> findItemDetails(@Param("itemId") Long itemId,
+                                          @Param("userId") Long userId,
+                                          @Param("cur") LocalDateTime cur);
+
+    /**
+     * Версия выдачи вещей владельца: меняется при изменении его вещей, их броней и отзывов,
+     * а также когда очередная бронь начинается и из следующей становится последней.
+     */
+    @Query(value = "SELECT " +
+            "(SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(i.updated_at) AS VARCHAR), '') " +
+            "FROM items AS i WHERE i.owner_id = :ownerId) || '|' || " +
+            "(SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(b.updated_at) AS VARCHAR), '') || '|' || " +
+            "COUNT(CASE WHEN b.start_date < :cur THEN 1 END) " +
+            "FROM bookings AS b JOIN items AS i ON i.id = b.item_id WHERE i.owner_id = :ownerId) || '|' || " +
+            "(SELECT COUNT(*) || '|' || COALESCE(MAX(c.id), 0) || '|' || " +
+            "COALESCE(CAST(MAX(u.updated_at) AS VARCHAR), '') " +
+            "FROM comments AS c JOIN items AS i ON i.id = c.item_id JOIN users AS u ON u.id = c.author_id " +
+            "WHERE i.owner_id = :ownerId)", nativeQuery = true)
+    String findOwnerItemsVersion(@Param("ownerId") Long ownerId, @Param("cur") LocalDateTime cur);
 }
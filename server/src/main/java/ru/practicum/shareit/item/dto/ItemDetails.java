@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+public interface ItemDetails {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Boolean getUserExists();
+
+    Long getNextBookingId();
+
+    Long getNextBookerId();
+
+    LocalDateTime getNextStart();
+
+    LocalDateTime getNextEnd();
+
+    Long getLastBookingId();
+
+    Long getLastBookerId();
+
+    LocalDateTime getLastStart();
+
+    LocalDateTime getLastEnd();
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Итог импорта одной записи, в порядке входа: id созданной вещи или причина, по которой запись не сохранена.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemImportResultDto {
+    private Long id;
+    private String error;
+}
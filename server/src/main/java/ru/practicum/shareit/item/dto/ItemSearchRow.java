@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemSearchRow {
+    Long getId();
+
+    Long getOwnerId();
+
+    String getName();
+
+    String getDescription();
+}
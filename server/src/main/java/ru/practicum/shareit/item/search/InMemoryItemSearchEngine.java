@@ -0,0 +1,214 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс по словам названия и описания доступных вещей.
+ * Каждое слово запроса сопоставляется как префикс слова вещи, слова запроса объединяются по И.
+ * Индекс строится после создания всех бинов, до запуска веб-сервера, поэтому первые запросы
+ * поиска уже видят все вещи.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine, SmartInitializingSingleton {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NavigableMap<String, Set<Long>> index = new ConcurrentSkipListMap<>();
+    private final Map<Long, IndexedItem> items = new ConcurrentHashMap<>();
+    // удаления во время построения: строка, прочитанная до удаления, не должна вернуть вещь в индекс
+    private Set<Long> removedWhileLoading;
+    private Set<Long> ownersRemovedWhileLoading;
+
+    public InMemoryItemSearchEngine(ItemRepository itemRepository, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> rebuild());
+        log.info("Поисковый индекс построен: {} вещей, {} слов", items.size(), index.size());
+    }
+
+    void rebuild() {
+        synchronized (this) {
+            removedWhileLoading = new HashSet<>();
+            ownersRemovedWhileLoading = new HashSet<>();
+        }
+        try (Stream<ItemSearchRow> rows = itemRepository.streamAvailable()) {
+            rows.forEach(this::load);
+        } finally {
+            synchronized (this) {
+                removedWhileLoading = null;
+                ownersRemovedWhileLoading = null;
+            }
+        }
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable page) {
+        List<String> terms = tokenize(text);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> matches = null;
+        for (String term : terms) {
+            Set<Long> termMatches = new HashSet<>();
+            index.subMap(term, true, term + Character.MAX_VALUE, true).values().forEach(termMatches::addAll);
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.retainAll(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        Stream<IndexedItem> result = matches.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingInt((IndexedItem item) -> item.rank(terms))
+                        .thenComparing(IndexedItem::getId));
+        if (page.isPaged()) {
+            result = result.skip(page.getOffset()).limit(page.getPageSize());
+        }
+        return result.map(IndexedItem::toItem).collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(Item item) {
+        Long id = item.getId();
+        Long ownerId = item.getOwner() == null ? null : item.getOwner().getId();
+        String name = item.getName();
+        String description = item.getDescription();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        Runnable update = () -> {
+            if (available) {
+                add(id, ownerId, name, description);
+            } else {
+                remove(id);
+            }
+        };
+        TransactionHooks.afterCommit(update);
+    }
+
+    @Override
+    public void removeByOwner(Long ownerId) {
+        TransactionHooks.afterCommit(() -> removeOwned(ownerId));
+    }
+
+    private synchronized void load(ItemSearchRow row) {
+        // вещь, изменённая или удалённая после чтения снимка, уже в индексе в актуальном виде
+        if (items.containsKey(row.getId()) || removedWhileLoading.contains(row.getId())
+                || ownersRemovedWhileLoading.contains(row.getOwnerId())) {
+            return;
+        }
+        add(row.getId(), row.getOwnerId(), row.getName(), row.getDescription());
+    }
+
+    private synchronized void removeOwned(Long ownerId) {
+        if (ownersRemovedWhileLoading != null) {
+            ownersRemovedWhileLoading.add(ownerId);
+        }
+        List<Long> owned = items.values().stream()
+                .filter(item -> ownerId.equals(item.getOwnerId()))
+                .map(IndexedItem::getId)
+                .collect(Collectors.toList());
+        owned.forEach(this::remove);
+    }
+
+    private synchronized void add(Long id, Long ownerId, String name, String description) {
+        unindex(id);
+        IndexedItem item = new IndexedItem(id, ownerId, name, description, tokenize(name), tokenize(description));
+        items.put(id, item);
+        for (String token : item.tokens()) {
+            index.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private synchronized void remove(Long id) {
+        if (removedWhileLoading != null) {
+            removedWhileLoading.add(id);
+        }
+        unindex(id);
+    }
+
+    private synchronized void unindex(Long id) {
+        IndexedItem item = items.remove(id);
+        if (item == null) {
+            return;
+        }
+        for (String token : item.tokens()) {
+            index.computeIfPresent(token, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return SEPARATOR.splitAsStream(text.toLowerCase())
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    @Value
+    private static class IndexedItem {
+        Long id;
+        Long ownerId;
+        String name;
+        String description;
+        List<String> nameTokens;
+        List<String> descriptionTokens;
+
+        Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(nameTokens);
+            tokens.addAll(descriptionTokens);
+            return tokens;
+        }
+
+        int rank(List<String> terms) {
+            for (String term : terms) {
+                if (nameTokens.stream().noneMatch(token -> token.startsWith(term))) {
+                    return 1;
+                }
+            }
+            return 0;
+        }
+
+        Item toItem() {
+            return Item.builder()
+                    .id(id)
+                    .name(name)
+                    .description(description)
+                    .available(true)
+                    .build();
+        }
+    }
+}
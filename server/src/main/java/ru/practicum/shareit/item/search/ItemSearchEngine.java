@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+/**
+ * Поиск доступных к аренде вещей по названию и описанию.
+ * Результаты упорядочены по релевантности, затем по id.
+ */
+public interface ItemSearchEngine {
+    List<Item> search(String text, Pageable page);
+
+    /**
+     * Сообщает о созданной или изменённой вещи. Движкам, которые ищут прямо в БД, делать ничего не нужно.
+     */
+    default void index(Item item) {
+    }
+
+    /**
+     * Сообщает об удалённом пользователе: его вещи удалены каскадом в БД, мимо сервиса вещей.
+     */
+    default void removeByOwner(Long ownerId) {
+    }
+}
@@ -2,20 +2,36 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
     ItemShortDto addNewItem(ItemRequestDto itemRequestDto, Long ownerId);
 
+    /**
+     * Добавляет вещи владельца одной транзакцией; результат в порядке входного списка.
+     */
+    List<ItemImportResultDto> importItems(List<ItemRequestDto> itemRequestDtos, Long ownerId);
+
     ItemShortDto updateItem(ItemRequestDto itemRequestDto, Long ownerId);
 
     ItemResponseDto getItemById(Long userId, Long itemId);
 
     List<ItemResponseDto> getItemsByOwner(Long ownerId, int from, int size);
 
+    /**
+     * ETag выдачи вещей владельца: вычисляется одним запросом, без сборки самой выдачи.
+     */
+    String getItemsByOwnerTag(Long ownerId);
+
     List<ItemRequestDto> search(GetSearchItem search);
 
     List<CommentResponseDto> searchCommentsByText(GetSearchItem search);
 
+    /**
+     * Свободные окна вещи в периоде [from, to); по умолчанию — ближайшие 90 дней.
+     */
+    List<AvailabilityWindowDto> getAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to);
+
     CommentResponseDto addComment(Long itemId, CommentRequestDto dto, Long userId);
 }
@@ -10,22 +10,29 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.shareit.booking.dao.BookingRepository;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingShort;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingCalendar;
 import ru.practicum.shareit.booking.utils.BookingMapper;
+import ru.practicum.shareit.cache.EntityCacheEvictor;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.ItemUpdatingException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.comment.CommentWriter;
 import ru.practicum.shareit.item.dao.CommentRepository;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.utils.CommentMapper;
 import ru.practicum.shareit.item.utils.ItemMapper;
 import ru.practicum.shareit.request.dao.RequestItemRepository;
 import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.KnownUsers;
+import ru.practicum.shareit.utils.EntityTag;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -35,11 +42,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
+    static final int AVAILABILITY_DAYS = 90;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final RequestItemRepository requestRepository;
+    private final ItemSearchEngine searchEngine;
+    private final KnownUsers knownUsers;
+    private final EntityCacheEvictor cacheEvictor;
+    private final CommentWriter commentWriter;
+    private final BookingCalendar bookingCalendar;
 
     @Transactional
     public ItemShortDto addNewItem(ItemRequestDto itemRequestDto, Long ownerId) {
@@ -50,8 +64,59 @@ public class ItemServiceImpl implements ItemService {
         if (itemRequestDto.getRequestId() != null) {
             request = requestRepository.findById(itemRequestDto.getRequestId()).orElse(null);
         }
-        Item item = ItemMapper.dtoToItem(itemRequestDto, owner, request);
-        return ItemMapper.toItemShort(itemRepository.save(item));
+        Item item = itemRepository.save(ItemMapper.dtoToItem(itemRequestDto, owner, request));
+        searchEngine.index(item);
+        return ItemMapper.toItemShort(item);
+    }
+
+    /**
+     * Владелец и запросы читаются один раз на весь импорт; id вещей берутся из последовательности,
+     * а вставки уходят JDBC-пакетами по hibernate.jdbc.batch_size. Записи, нарушающие ограничения
+     * таблицы items, отсекаются до вставки и попадают в итог с ошибкой: иначе одна такая запись
+     * откатила бы весь импорт.
+     */
+    @Transactional
+    public List<ItemImportResultDto> importItems(List<ItemRequestDto> itemRequestDtos, Long ownerId) {
+        User owner = userRepository.findById(ownerId).orElseThrow(() -> new UserNotFoundException(
+                String.format("Пользователь с id: %s не обнаружен", ownerId)));
+
+        Set<Long> requestIds = itemRequestDtos.stream()
+                .map(ItemRequestDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, RequestItem> requests = requestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(RequestItem::getId, request -> request));
+        List<ItemImportResultDto> results = new ArrayList<>();
+        List<ItemImportResultDto> created = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (ItemRequestDto dto : itemRequestDtos) {
+            ItemImportResultDto result = new ItemImportResultDto();
+            result.setError(importError(dto));
+            if (result.getError() == null) {
+                created.add(result);
+                items.add(ItemMapper.dtoToItem(dto, owner, requests.get(dto.getRequestId())));
+            }
+            results.add(result);
+        }
+        itemRepository.saveAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            created.get(i).setId(items.get(i).getId());
+            searchEngine.index(items.get(i));
+        }
+        return results;
+    }
+
+    private static String importError(ItemRequestDto dto) {
+        if (dto.getName() == null || dto.getName().isBlank()) {
+            return "Имя вещи не может быть пустым";
+        }
+        if (dto.getName().length() > Item.MAX_NAME_LENGTH) {
+            return String.format("Имя вещи не может быть длиннее %s символов", Item.MAX_NAME_LENGTH);
+        }
+        if (dto.getDescription() != null && dto.getDescription().length() > Item.MAX_DESCRIPTION_LENGTH) {
+            return String.format("Описание вещи не может быть длиннее %s символов", Item.MAX_DESCRIPTION_LENGTH);
+        }
+        return null;
     }
 
     @Transactional
@@ -68,68 +133,92 @@ public class ItemServiceImpl implements ItemService {
         item.setOwner(owner);
         setAttributes(itemRequestDto, item);
 
-        return ItemMapper.toItemShort(itemRepository.save(item));
+        Item saved = itemRepository.save(item);
+        searchEngine.index(saved);
+        cacheEvictor.evict(Item.class, itemId);
+        return ItemMapper.toItemShort(saved);
     }
 
     public ItemResponseDto getItemById(Long userId, Long itemId) {
-        LocalDateTime cur = LocalDateTime.now();
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(
-                        String.format("Пользователь с id: %s не обнаружен", userId)));
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new ItemNotFoundException(String.format("Вещь с id: %s не обнаружена", itemId)));
-
-        BookingShortDto nextBooking = bookingRepository.findNextBookingByItemId(itemId, cur)
-                .map(BookingMapper::toShortDto).orElse(null);
-        BookingShortDto lastBooking = bookingRepository.findLastBookingByItemId(itemId, cur)
-                .map(BookingMapper::toShortDto).orElse(null);
+        ItemDetails details = itemRepository.findItemDetails(itemId, userId, LocalDateTime.now())
+                .orElseThrow(() -> {
+                    if (!knownUsers.exists(userId)) {
+                        return new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", userId));
+                    }
+                    return new ItemNotFoundException(String.format("Вещь с id: %s не обнаружена", itemId));
+                });
+        if (!details.getUserExists()) {
+            throw new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", userId));
+        }
+        List<CommentResponseDto> comments = withPendingComments(commentRepository.findResponseDtoByItemId(itemId),
+                userId, itemId);
 
-        List<CommentResponseDto> comments = CommentMapper.toResponseDto(
-                commentRepository.findAllByItem_IdOrderByCreatedDesc(itemId));
+        return ItemMapper.toItemResponseDto(details, comments);
+    }
 
-        if (user.equals(item.getOwner())) {
-            return ItemMapper.toItemResponseDto(item, nextBooking, lastBooking, comments);
-        } else {
-            return ItemMapper.toItemResponseDto(item, null, null, comments);
+    /**
+     * Отзывы автора, ещё не записанные в БД, идут первыми как самые новые; уже записанные
+     * за время чтения совпадают с ожидающими по тексту и времени и не дублируются.
+     */
+    private List<CommentResponseDto> withPendingComments(List<CommentResponseDto> comments, Long authorId,
+                                                         Long itemId) {
+        List<CommentResponseDto> pending = commentWriter.findPending(authorId, itemId);
+        if (pending.isEmpty()) {
+            return comments;
         }
+        List<CommentResponseDto> result = new ArrayList<>();
+        for (CommentResponseDto comment : pending) {
+            boolean written = comments.stream().anyMatch(saved -> saved.getText().equals(comment.getText())
+                    && saved.getCreated().equals(comment.getCreated()));
+            if (!written) {
+                result.add(0, comment);
+            }
+        }
+        result.addAll(comments);
+        return result;
+    }
+
+    public String getItemsByOwnerTag(Long ownerId) {
+        return EntityTag.of(ownerId, itemRepository.findOwnerItemsVersion(ownerId, LocalDateTime.now()));
     }
 
     public List<ItemResponseDto> getItemsByOwner(Long ownerId, int from, int size) {
         LocalDateTime cur = LocalDateTime.now();
         Pageable page = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.ASC, "id"));
         List<Item> items = itemRepository.findAllByOwner_Id(ownerId, page);
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
         List<Long> ids = items.stream().map(Item::getId).collect(Collectors.toList());
 
-        List<Booking> bookings = bookingRepository.findAllByItem_IdIn(ids);
+        List<ItemBookingShort> bookings = bookingRepository.findNextAndLastByItemIds(ids, cur);
         List<Comment> comments = commentRepository.findAllByItemIdIn(ids);
         if (!bookings.isEmpty()) {
-            return connectBookingsAndComments(bookings, items, comments, cur);
+            return connectBookingsAndComments(bookings, items, comments);
         } else {
             return ItemMapper.toItemResponseDto(items);
         }
     }
 
-    private List<ItemResponseDto> connectBookingsAndComments(List<Booking> bookings, List<Item> items,
-                                                             List<Comment> comments, LocalDateTime cur) {
-        Map<Long, List<Booking>> bookingMap = bookings.stream().collect(Collectors.groupingBy(b -> b.getItem().getId()));
+    private List<ItemResponseDto> connectBookingsAndComments(List<ItemBookingShort> bookings, List<Item> items,
+                                                             List<Comment> comments) {
+        Map<Long, BookingShortDto> nextBookings = new HashMap<>();
+        Map<Long, BookingShortDto> lastBookings = new HashMap<>();
+        for (ItemBookingShort booking : bookings) {
+            if (booking.getNext()) {
+                nextBookings.put(booking.getItemId(), BookingMapper.toShortDto(booking));
+            } else {
+                lastBookings.put(booking.getItemId(), BookingMapper.toShortDto(booking));
+            }
+        }
         Map<Long, List<Comment>> commentMap = comments.stream().collect(Collectors.groupingBy(c -> c.getItem().getId()));
         List<ItemResponseDto> result = new ArrayList<>();
         for (Item item : items) {
-            BookingShortDto nextBooking = bookingMap.getOrDefault(item.getId(), Collections.emptyList()).stream()
-                    .filter(b -> b.getStartDate().isAfter(cur))
-                    .sorted(Comparator.comparing(Booking::getStartDate, Comparator.naturalOrder()))
-                    .map(BookingMapper::toShortDto)
-                    .findFirst().orElse(null);
-
-            BookingShortDto lastBooking = bookingMap.getOrDefault(item.getId(), Collections.emptyList()).stream()
-                    .filter(b -> b.getStartDate().isBefore(cur))
-                    .sorted(Comparator.comparing(Booking::getStartDate, Comparator.reverseOrder()))
-                    .map(BookingMapper::toShortDto)
-                    .findFirst().orElse(null);
             List<CommentResponseDto> responseComments = CommentMapper.toResponseDto(commentMap.getOrDefault(item.getId(),
                     Collections.emptyList()));
 
-            result.add(ItemMapper.toItemResponseDto(item, nextBooking, lastBooking, responseComments));
+            result.add(ItemMapper.toItemResponseDto(item, nextBookings.get(item.getId()),
+                    lastBookings.get(item.getId()), responseComments));
         }
         return result;
     }
@@ -139,9 +228,8 @@ public class ItemServiceImpl implements ItemService {
             return Collections.emptyList();
         }
         Pageable page = PageRequest.of(search.getFrom(), search.getSize());
-        userRepository.findById(search.getUserId()).orElseThrow(() -> new UserNotFoundException(
-                String.format("Пользователь с id: %s не обнаружен", search.getUserId())));
-        return ItemMapper.itemToDto(itemRepository.searchItemsByNameOrDescription(search.getText(), page));
+        knownUsers.requireExists(search.getUserId());
+        return ItemMapper.itemToDto(searchEngine.search(search.getText(), page));
     }
 
     @Override
@@ -149,13 +237,33 @@ public class ItemServiceImpl implements ItemService {
         if (search.isBlank()) {
             return Collections.emptyList();
         }
-        userRepository.findById(search.getUserId()).orElseThrow(() -> new UserNotFoundException(
-                String.format("Пользователь с id: %s не обнаружен", search.getUserId())));
+        knownUsers.requireExists(search.getUserId());
         Pageable page = PageRequest.of(search.getFrom(), search.getSize());
 
         return CommentMapper.toResponseDto(commentRepository.searchByText(search.getItemId(), search.getText(), page));
     }
 
+    /**
+     * Прошедшее время не предлагается: начало периода не раньше текущего момента.
+     * Вещь читается через кэш второго уровня, занятость — из {@link BookingCalendar}, так что
+     * на повторных запросах БД не затрагивается.
+     */
+    @Override
+    public List<AvailabilityWindowDto> getAvailability(Long userId, Long itemId, LocalDateTime from,
+                                                       LocalDateTime to) {
+        knownUsers.requireExists(userId);
+        itemRepository.findById(itemId)
+                .orElseThrow(() -> new ItemNotFoundException(String.format("Вещь с id: %s не обнаружена", itemId)));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+        LocalDateTime end = to != null ? to : start.plusDays(AVAILABILITY_DAYS);
+        if (!end.isAfter(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Конец периода %s должен быть позже начала %s", end, start));
+        }
+        return bookingCalendar.freeWindows(itemId, start, end);
+    }
+
     @Override
     @Transactional
     public CommentResponseDto addComment(Long itemId, CommentRequestDto dto, Long userId) {
@@ -165,7 +273,7 @@ public class ItemServiceImpl implements ItemService {
 
         Comment comment = CommentMapper.dtoToComment(dto, booking.getBooker(), booking.getItem());
 
-        return CommentMapper.toResponseDto(commentRepository.save(comment));
+        return commentWriter.write(comment);
     }
 
     private void checkOwner(Item item, Long ownerId) {
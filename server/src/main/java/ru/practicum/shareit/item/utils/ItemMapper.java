@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.utils;
 
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemDetails;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.dto.ItemShortDto;
@@ -75,6 +76,36 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemResponseDto toItemResponseDto(ItemDetails details, List<CommentResponseDto> comments) {
+        BookingShortDto next = null;
+        BookingShortDto last = null;
+        if (details.getNextBookingId() != null) {
+            next = BookingShortDto.builder()
+                    .id(details.getNextBookingId())
+                    .bookerId(details.getNextBookerId())
+                    .start(details.getNextStart())
+                    .end(details.getNextEnd())
+                    .build();
+        }
+        if (details.getLastBookingId() != null) {
+            last = BookingShortDto.builder()
+                    .id(details.getLastBookingId())
+                    .bookerId(details.getLastBookerId())
+                    .start(details.getLastStart())
+                    .end(details.getLastEnd())
+                    .build();
+        }
+        return ItemResponseDto.builder()
+                .id(details.getId())
+                .name(details.getName())
+                .description(details.getDescription())
+                .available(details.getAvailable())
+                .nextBooking(next)
+                .lastBooking(last)
+                .comments(comments)
+                .build();
+    }
+
     public static List<ItemResponseDto> toItemResponseDto(List<Item> items) {
         List<ItemResponseDto> dtos = new ArrayList<>();
         for (Item item : items) {
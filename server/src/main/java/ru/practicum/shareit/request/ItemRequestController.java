@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.RequestItemDto;
 import ru.practicum.shareit.request.dto.RequestItemResponseDto;
 import ru.practicum.shareit.request.service.RequestItemService;
@@ -22,7 +23,11 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<RequestItemResponseDto> getRequestsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+    public List<RequestItemResponseDto> getRequestsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                            WebRequest webRequest) {
+        if (webRequest.checkNotModified(service.getRequestsTag(userId))) {
+            return null;
+        }
         return service.getRequests(userId);
     }
 
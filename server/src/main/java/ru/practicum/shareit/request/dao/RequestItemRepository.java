@@ -1,8 +1,7 @@
 package ru.practicum.shareit.request.dao;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
@@ -20,6 +19,16 @@ public interface RequestItemRepository extends JpaRepository<RequestItem, Long>,
 
     @Query("select req from RequestItem as req " +
             "WHERE req.requestor.id != :userId")
-    @EntityGraph(attributePaths = "items")
-    Page<RequestItem> findAllPaged(Pageable page, @Param("userId") Long userId);
+    Slice<RequestItem> findAllPaged(Pageable page, @Param("userId") Long userId);
+
+    /**
+     * Версия выдачи собственных запросов пользователя вместе с ответившими на них вещами.
+     */
+    @Query(value = "SELECT " +
+            "(SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(r.updated_at) AS VARCHAR), '') " +
+            "FROM item_request AS r WHERE r.requestor_id = :userId) || '|' || " +
+            "(SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(i.updated_at) AS VARCHAR), '') " +
+            "FROM items AS i JOIN item_request AS r ON r.id = i.request_id WHERE r.requestor_id = :userId)",
+            nativeQuery = true)
+    String findRequestorVersion(@Param("userId") Long userId);
 }
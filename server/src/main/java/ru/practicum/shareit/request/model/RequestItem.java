@@ -1,6 +1,9 @@
 package ru.practicum.shareit.request.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -14,6 +17,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "item_request")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "request")
 @Data
 @Builder
 @NoArgsConstructor
@@ -31,4 +36,8 @@ public class RequestItem {
     private LocalDateTime created;
     @OneToMany(mappedBy = "request")
     private List<Item> items;
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @EqualsAndHashCode.Exclude
+    private LocalDateTime updatedAt;
 }
@@ -10,6 +10,11 @@ public interface RequestItemService {
 
     List<RequestItemResponseDto> getRequests(Long userId);
 
+    /**
+     * ETag выдачи собственных запросов пользователя: вычисляется одним запросом, без сборки самой выдачи.
+     */
+    String getRequestsTag(Long userId);
+
     List<RequestItemResponseDto> getAllRequests(Long userId, int from, int size);
 
     RequestItemResponseDto getRequestById(Long userId, Long requestId);
@@ -7,6 +7,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.RequestNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dao.RequestItemRepository;
 import ru.practicum.shareit.request.dto.RequestItemDto;
 import ru.practicum.shareit.request.dto.RequestItemResponseDto;
@@ -14,15 +16,22 @@ import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.request.utils.RequestItemMapper;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.KnownUsers;
+import ru.practicum.shareit.utils.EntityTag;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class RequestItemServiceImpl implements RequestItemService {
     private final RequestItemRepository repository;
+    private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final KnownUsers knownUsers;
 
     @Transactional
     public RequestItemDto addNewRequest(RequestItemDto request, Long userId) {
@@ -34,29 +43,39 @@ public class RequestItemServiceImpl implements RequestItemService {
 
 
     public List<RequestItemResponseDto> getRequests(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", userId));
-        }
+        knownUsers.requireExists(userId);
         List<RequestItem> requests = repository.findAllByRequestorId(userId);
 
-        return RequestItemMapper.toResponseDto(requests);
+        return withItems(requests);
+    }
+
+    public String getRequestsTag(Long userId) {
+        return EntityTag.of(userId, repository.findRequestorVersion(userId));
     }
 
     public List<RequestItemResponseDto> getAllRequests(Long userId, int from, int size) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", userId));
-        }
-        return repository.findAllPaged(PageRequest.of(from > 0 ? from / size : 0, size,
-                        Sort.by(Sort.Direction.DESC, "created")), userId)
-                .map(RequestItemMapper::toResponseDto)
+        knownUsers.requireExists(userId);
+        List<RequestItem> requests = repository.findAllPaged(PageRequest.of(from > 0 ? from / size : 0, size,
+                        Sort.by(Sort.Direction.DESC, "created", "id")), userId)
                 .getContent();
+        return withItems(requests);
     }
 
     public RequestItemResponseDto getRequestById(Long userId, Long requestId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", userId));
-        }
+        knownUsers.requireExists(userId);
         return RequestItemMapper.toResponseDto(repository.findById(requestId).orElseThrow(() ->
                 new RequestNotFoundException(String.format("Запрос с id: %s не обнаружен", requestId))));
     }
+
+    private List<RequestItemResponseDto> withItems(List<RequestItem> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = requests.stream()
+                .map(RequestItem::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<Item>> items = itemRepository.findAllByRequest_IdIn(ids).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        return RequestItemMapper.toResponseDto(requests, items);
+    }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.utils;
 
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.utils.ItemMapper;
 import ru.practicum.shareit.request.dto.RequestItemDto;
 import ru.practicum.shareit.request.dto.RequestItemResponseDto;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class RequestItemMapper {
     public static RequestItemDto toRequestItemDto(RequestItem request) {
@@ -30,13 +32,25 @@ public class RequestItemMapper {
     }
 
     public static RequestItemResponseDto toResponseDto(RequestItem request) {
+        return toResponseDto(request, request.getItems());
+    }
+
+    public static RequestItemResponseDto toResponseDto(RequestItem request, List<Item> items) {
         return RequestItemResponseDto.builder()
                 .id(request.getId())
                 .description(request.getDescription())
                 .created(request.getCreated())
-                .items(ItemMapper.toItemShort(request.getItems()))
+                .items(ItemMapper.toItemShort(items))
                 .build();
+    }
 
+    public static List<RequestItemResponseDto> toResponseDto(List<RequestItem> requests,
+                                                             Map<Long, List<Item>> itemsByRequest) {
+        List<RequestItemResponseDto> dtos = new ArrayList<>();
+        for (RequestItem request : requests) {
+            dtos.add(toResponseDto(request, itemsByRequest.getOrDefault(request.getId(), Collections.emptyList())));
+        }
+        return dtos;
     }
 
     public static List<RequestItemResponseDto> toResponseDto(List<RequestItem> requests) {
@@ -1,8 +1,13 @@
 package ru.practicum.shareit.user.dao;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long>, QuerydslPredicateExecutor<User> {
+    @Query("select u.id from User as u")
+    List<Long> findAllIds();
 }
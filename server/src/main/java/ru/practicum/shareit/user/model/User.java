@@ -3,14 +3,21 @@ package ru.practicum.shareit.user.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
@@ -21,4 +28,8 @@ public class User {
     private String name;
     @Column(unique = true)
     private String email;
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @EqualsAndHashCode.Exclude
+    private LocalDateTime updatedAt;
 }
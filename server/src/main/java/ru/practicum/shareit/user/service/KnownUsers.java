@@ -0,0 +1,113 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import javax.annotation.PostConstruct;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Id существующих пользователей в памяти: на чтении проверка пользователя обходится без запроса к БД.
+ * Id выдаются подряд, поэтому хранятся битами в {@link BitSet}. Набор загружается при старте
+ * и поддерживается {@link UserServiceImpl}; при промахе ответ берётся из БД и запоминается.
+ * Id, запомненный внутри транзакции, забывается при её откате.
+ * Удаление пользователя другим экземпляром сервера здесь не видно до перезапуска.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnownUsers {
+    private final UserRepository userRepository;
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // меняется, когда id забывается: промах, проверенный в БД раньше, не запоминается
+    private long generation;
+
+    @PostConstruct
+    void load() {
+        List<Long> all = userRepository.findAllIds();
+        all.forEach(this::add);
+        log.info("Загружены id пользователей: {}", all.size());
+    }
+
+    public boolean exists(Long id) {
+        if (!cacheable(id)) {
+            return userRepository.existsById(id);
+        }
+        long seen;
+        lock.readLock().lock();
+        try {
+            if (ids.get(id.intValue())) {
+                return true;
+            }
+            seen = generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!userRepository.existsById(id)) {
+            return false;
+        }
+        remember(id.intValue(), seen);
+        return true;
+    }
+
+    public void requireExists(Long id) {
+        if (!exists(id)) {
+            throw new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", id));
+        }
+    }
+
+    public void add(Long id) {
+        if (!cacheable(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(id.intValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TransactionHooks.afterRollback(() -> forget(id.intValue()));
+    }
+
+    public void remove(Long id) {
+        if (!cacheable(id)) {
+            return;
+        }
+        forget(id.intValue());
+    }
+
+    private void remember(int id, long seen) {
+        lock.writeLock().lock();
+        try {
+            if (seen != generation) {
+                return;
+            }
+            ids.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TransactionHooks.afterRollback(() -> forget(id));
+    }
+
+    private void forget(int id) {
+        lock.writeLock().lock();
+        try {
+            ids.clear(id);
+            generation++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean cacheable(Long id) {
+        return id != null && id >= 0 && id <= Integer.MAX_VALUE;
+    }
+}
@@ -2,7 +2,12 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.cache.EntityCacheEvictor;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.dto.UserRequestDto;
@@ -14,6 +19,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final KnownUsers knownUsers;
+    private final EntityCacheEvictor cacheEvictor;
+    private final BookingCalendar bookingCalendar;
+    private final ItemSearchEngine searchEngine;
 
     @Override
     public List<UserRequestDto> getAllUsers() {
@@ -22,8 +31,9 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserRequestDto saveUser(UserRequestDto userRequestDto) {
-        User user = UserMapper.dtoToUser(userRequestDto);
-        return UserMapper.userToDto(userRepository.save(user));
+        User user = userRepository.save(UserMapper.dtoToUser(userRequestDto));
+        knownUsers.add(user.getId());
+        return UserMapper.userToDto(user);
     }
 
     @Override
@@ -40,12 +50,21 @@ public class UserServiceImpl implements UserService {
         if (name != null) {
             user.setName(name);
         }
-        return UserMapper.userToDto(userRepository.save(user));
+        User saved = userRepository.save(user);
+        cacheEvictor.evict(User.class, id);
+        return UserMapper.userToDto(saved);
     }
 
     @Override
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        knownUsers.remove(id);
+        cacheEvictor.evict(User.class, id);
+        // вещи и запросы пользователя удалены каскадом в БД, мимо Hibernate
+        cacheEvictor.evictAll(Item.class, RequestItem.class);
+        searchEngine.removeByOwner(id);
+        // вместе с ними удалены и брони пользователя и его вещей
+        bookingCalendar.reload();
     }
 
     @Override
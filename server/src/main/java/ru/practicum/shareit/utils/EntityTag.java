@@ -0,0 +1,20 @@
+package ru.practicum.shareit.utils;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Строгий ETag выдачи, вычисленный по строке версии из базы, а не по телу ответа.
+ */
+public final class EntityTag {
+    private EntityTag() {
+    }
+
+    public static String of(Object... parts) {
+        String version = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return "\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -42,4 +42,3 @@ CREATE TABLE IF NOT EXISTS comments
     author_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     created   timestamp
 );
-
@@ -0,0 +1,17 @@
+-- BookingServiceImpl.getAllUserBookings: выдача броней пользователя с курсором (start_date, id)
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date DESC, id DESC);
+-- выдача броней владельца, ближайшие брони вещи, проверка пересечения периодов
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start_date DESC, id DESC);
+-- BookingRepository.findFirstByBooker_IdAndItem_IdAndEndDateBefore: право оставить отзыв
+CREATE INDEX IF NOT EXISTS bookings_booker_item_end_idx ON bookings (booker_id, item_id, end_date);
+
+-- ItemRepository.findAllByOwner_Id и join владельца в выдаче броней
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
+-- вещи, добавленные в ответ на запрос
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
+-- CommentRepository: отзывы вещи от новых к старым
+CREATE INDEX IF NOT EXISTS comments_item_created_idx ON comments (item_id, created DESC);
+
+-- RequestItemRepository.findAllByRequestorId: собственные запросы от новых к старым
+CREATE INDEX IF NOT EXISTS item_request_requestor_created_idx ON item_request (requestor_id, creation_date DESC);
@@ -0,0 +1,6 @@
+-- время последнего изменения строки: из него и числа строк сервер строит ETag выдач
+-- (ItemServiceImpl.getItemsByOwnerTag, BookingServiceImpl.getAllUserBookingsTag, RequestItemServiceImpl.getRequestsTag)
+ALTER TABLE users ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+ALTER TABLE items ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+ALTER TABLE bookings ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+ALTER TABLE item_request ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
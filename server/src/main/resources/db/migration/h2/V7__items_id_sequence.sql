@@ -0,0 +1,4 @@
+-- то же, что postgresql/V7: H2 используется только с пустой базой, поэтому последовательность начинается с 1
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT NEXT VALUE FOR items_seq;
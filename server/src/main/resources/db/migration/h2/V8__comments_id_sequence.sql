@@ -0,0 +1,4 @@
+-- то же, что postgresql/V8
+CREATE SEQUENCE IF NOT EXISTS comments_seq INCREMENT BY 50;
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT NEXT VALUE FOR comments_seq;
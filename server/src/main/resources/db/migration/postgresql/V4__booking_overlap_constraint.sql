@@ -0,0 +1,38 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- до этого ограничения пересечения не запрещались: ожидающая бронь, которая пересекает подтверждённую
+-- или созданную раньше ожидающую бронь той же вещи, отклоняется
+UPDATE bookings AS b
+SET status = 'REJECTED'
+WHERE b.status = 'WAITING'
+  AND EXISTS(SELECT 1
+             FROM bookings AS o
+             WHERE o.item_id = b.item_id
+               AND o.id <> b.id
+               AND tsrange(o.start_date, o.end_date) && tsrange(b.start_date, b.end_date)
+               AND (o.status = 'APPROVED' OR (o.status = 'WAITING' AND o.id < b.id)));
+
+-- какую из пересекающихся подтверждённых броней оставить, решает человек: миграция останавливается со списком
+DO $$
+DECLARE
+    conflicts text;
+BEGIN
+    SELECT string_agg(a.id || '/' || b.id, ', ' ORDER BY a.id, b.id)
+    INTO conflicts
+    FROM bookings AS a
+             JOIN bookings AS b ON b.item_id = a.item_id AND b.id > a.id
+        AND tsrange(a.start_date, a.end_date) && tsrange(b.start_date, b.end_date)
+    WHERE a.status = 'APPROVED'
+      AND b.status = 'APPROVED';
+    IF conflicts IS NOT NULL THEN
+        RAISE EXCEPTION 'bookings_no_overlap: пересекаются подтверждённые брони (пары id): %', conflicts
+            USING HINT = 'Отмените или отклоните одну бронь из каждой пары и перезапустите сервер';
+    END IF;
+END
+$$;
+
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS bookings_no_overlap;
+ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap EXCLUDE USING gist (
+    item_id WITH =,
+    tsrange(start_date, end_date) WITH &&
+) WHERE (status IN ('WAITING', 'APPROVED'));
@@ -0,0 +1,4 @@
+-- ближайшие брони вещи учитывают только действующие брони: частичный индекс меньше полного
+-- и сразу отдаёт строки в порядке start_date
+CREATE INDEX IF NOT EXISTS bookings_item_active_start_idx ON bookings (item_id, start_date)
+    WHERE status NOT IN ('REJECTED', 'CANCELLED');
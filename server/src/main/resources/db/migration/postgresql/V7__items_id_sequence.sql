@@ -0,0 +1,7 @@
+-- id вещей выдаёт последовательность с шагом 50: Hibernate резервирует диапазон id одним обращением
+-- и может отправлять вставки пачками, что с IDENTITY невозможно (ItemServiceImpl.importItems)
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+SELECT setval('items_seq', COALESCE((SELECT MAX(id) FROM items), 0) + 1, false);
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+ALTER SEQUENCE items_seq OWNED BY items.id;
@@ -0,0 +1,7 @@
+-- id отзывов из последовательности, как у вещей в V7: фоновая запись очереди отзывов
+-- (QueuedCommentWriter) отправляет вставки пачками
+CREATE SEQUENCE IF NOT EXISTS comments_seq INCREMENT BY 50;
+SELECT setval('comments_seq', COALESCE((SELECT MAX(id) FROM comments), 0) + 1, false);
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+ALTER SEQUENCE comments_seq OWNED BY comments.id;
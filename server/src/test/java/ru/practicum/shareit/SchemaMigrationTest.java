@@ -0,0 +1,36 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class SchemaMigrationTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final Flyway flyway;
+
+    @Test
+    void migrate_shouldApplyCommonAndVendorScripts() {
+        // then
+        assertThat(jdbcTemplate.queryForList("SELECT \"version\" FROM \"flyway_schema_history\" " +
+                        "WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"", String.class),
+                contains("1", "2", "6", "7", "8"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES " +
+                "WHERE INDEX_NAME = 'BOOKINGS_BOOKER_START_IDX'", Integer.class), greaterThan(0));
+    }
+
+    @Test
+    void migrate_shouldSkipAppliedScripts() {
+        // when
+        int applied = flyway.migrate().migrationsExecuted;
+        // then
+        assertThat(applied, equalTo(0));
+    }
+}
@@ -8,21 +8,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.user.dto.UserShortResponseDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -188,6 +194,119 @@ class BookingControllerTest {
                 );
     }
 
+    @Test
+    @SneakyThrows
+    void getAllUserBookings_shouldReturnNextCursor_WhenPageIsFull() {
+        BookingResponseDto response = getBookingResponse();
+        String expected = BookingCursor.after(response).encode();
+
+        when(bookingService.getAllUserBookings(any()))
+                .thenReturn(List.of(response));
+
+        mvc.perform(get("/bookings")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(BookingController.NEXT_CURSOR_HEADER, expected)
+                );
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllUserItemBookings_shouldNotReturnNextCursor_WhenPageIsNotFull() {
+        when(bookingService.getAllUserBookings(any()))
+                .thenReturn(List.of(getBookingResponse()));
+
+        mvc.perform(get("/bookings/owner")
+                        .param("size", "10")
+                        .param("cursor", new BookingCursor(LocalDateTime.now(), 3L).encode())
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        header().doesNotExist(BookingController.NEXT_CURSOR_HEADER)
+                );
+    }
+
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void exportOwnerBookings_shouldWriteNdjsonRowPerBooking() {
+        BookingResponseDto response = getBookingResponse();
+        doAnswer(invocation -> {
+            Consumer<BookingResponseDto> sink = invocation.getArgument(2);
+            sink.accept(response);
+            sink.accept(response);
+            return null;
+        }).when(bookingService).exportOwnerBookings(anyLong(), any(), any());
+
+        String body = mvc.perform(get("/bookings/owner/export")
+                        .param("state", "PAST")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string("Content-Type", "application/x-ndjson"),
+                        header().string("Content-Disposition", "attachment; filename=bookings.ndjson")
+                )
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(mapper.readTree(lines[0]).get("id").asLong(), is(response.getId()));
+        verify(bookingService).exportOwnerBookings(eq(1L), eq(State.PAST), any(Consumer.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void exportOwnerBookings_shouldWriteCsvHeaderAndQuoteNames() {
+        BookingResponseDto response = getBookingResponse();
+        response.getItem().setName("Дрель, ударная");
+        doAnswer(invocation -> {
+            Consumer<BookingResponseDto> sink = invocation.getArgument(2);
+            sink.accept(response);
+            return null;
+        }).when(bookingService).exportOwnerBookings(anyLong(), any(), any());
+
+        String body = mvc.perform(get("/bookings/owner/export")
+                        .param("format", "CSV")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertThat(lines[0] + "\n", is(BookingExportWriter.CSV_HEADER));
+        assertThat(lines[1], containsString(",\"Дрель, ударная\","));
+        assertThat(lines[1], org.hamcrest.Matchers.startsWith(response.getId() + ","));
+    }
+
+    @Test
+    @SneakyThrows
+    void exportOwnerBookings_shouldWriteOnlyCsvHeader_whenNoBookings() {
+        String body = mvc.perform(get("/bookings/owner/export")
+                        .param("format", "CSV")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string("Content-Disposition", "attachment; filename=bookings.csv")
+                )
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body, is(BookingExportWriter.CSV_HEADER));
+    }
+
+    @Test
+    @SneakyThrows
+    void exportOwnerBookings_shouldReturnNotFound_whenOwnerIsUnknown() {
+        doThrow(new UserNotFoundException("Пользователь с id: 1 не обнаружен"))
+                .when(bookingService).exportOwnerBookings(anyLong(), any(), any());
+
+        mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isNotFound());
+    }
+
     private static BookingRequestDto getBookingRequestDto() {
         return BookingRequestDto.builder()
                 .status(BookingStatus.WAITING)
@@ -4,18 +4,25 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingShort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -315,6 +322,229 @@ class BookingRepositoryTest {
         assertThat(bookings, empty());
     }
 
+    @Test
+    void findNextAndLastByItemIds_shouldReturnOnlyClosestBookingsPerItem() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item first = getItem(owner);
+        Item second = getItem(owner);
+        em.persist(first);
+        em.persist(second);
+
+        Booking farPast = getBooking(first, booker);
+        farPast.setStartDate(now.minusDays(10L));
+        Booking past = getBooking(first, booker);
+        past.setStartDate(now.minusDays(2L));
+        Booking next = getBooking(first, booker);
+        next.setStartDate(now.plusDays(1L));
+        Booking farNext = getBooking(first, booker);
+        farNext.setStartDate(now.plusDays(5L));
+        Booking secondNext = getBooking(second, booker);
+        secondNext.setStartDate(now.plusDays(3L));
+        List.of(farPast, past, next, farNext, secondNext).forEach(em::persist);
+        // when
+        List<ItemBookingShort> result = repository.findNextAndLastByItemIds(
+                List.of(first.getId(), second.getId()), now);
+        // then
+        assertThat(result, hasSize(3));
+        assertThat(result, containsInAnyOrder(
+                allOf(hasProperty("itemId", equalTo(first.getId())),
+                        hasProperty("id", equalTo(next.getId())),
+                        hasProperty("next", is(true))),
+                allOf(hasProperty("itemId", equalTo(first.getId())),
+                        hasProperty("id", equalTo(past.getId())),
+                        hasProperty("bookerId", equalTo(booker.getId())),
+                        hasProperty("next", is(false))),
+                allOf(hasProperty("itemId", equalTo(second.getId())),
+                        hasProperty("id", equalTo(secondNext.getId())),
+                        hasProperty("next", is(true)))
+        ));
+    }
+
+    @Test
+    void existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter_shouldDetectOverlaps() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        Booking booking = getBooking(item, booker);
+        booking.setStartDate(booking.getStartDate().truncatedTo(ChronoUnit.SECONDS));
+        booking.setEndDate(booking.getEndDate().truncatedTo(ChronoUnit.SECONDS));
+        em.persist(booking);
+        Booking rejected = getBooking(item, booker);
+        rejected.setStartDate(booking.getEndDate().plusDays(1L));
+        rejected.setEndDate(booking.getEndDate().plusDays(3L));
+        rejected.setStatus(BookingStatus.REJECTED);
+        em.persist(rejected);
+        List<BookingStatus> statuses = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+        LocalDateTime start = booking.getStartDate();
+        LocalDateTime end = booking.getEndDate();
+        // when + then
+        assertTrue(repository.existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(
+                item.getId(), statuses, end.plusDays(1L), start.plusDays(1L)));
+        assertTrue(repository.existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(
+                item.getId(), statuses, start.plusHours(1L), start.minusDays(1L)));
+        assertFalse(repository.existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(
+                item.getId(), statuses, end.plusDays(2L), end));
+        assertFalse(repository.existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(
+                item.getId(), statuses, start, start.minusDays(1L)));
+    }
+
+    @Test
+    void findByBooker_shouldSelectResponseDtosNewestFirst_andSeekAfterCursor() {
+        // given
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        Booking older = getBooking(item, booker);
+        older.setStartDate(now.minusDays(3L));
+        Booking sameStart = getBooking(item, booker);
+        sameStart.setStartDate(now.minusDays(3L));
+        Booking newer = getBooking(item, booker);
+        newer.setStartDate(now.plusDays(1L));
+        List.of(older, sameStart, newer).forEach(em::persist);
+        em.clear();
+        // when
+        List<BookingResponseDto> firstPage = repository.findByBooker(booker.getId(), PageRequest.of(0, 2));
+        BookingResponseDto last = firstPage.get(1);
+        List<BookingResponseDto> secondPage = repository.findByBookerBefore(booker.getId(), last.getStartDate(),
+                last.getId(), PageRequest.of(0, 2));
+        // then
+        assertThat(firstPage, contains(
+                hasProperty("id", equalTo(newer.getId())),
+                hasProperty("id", equalTo(sameStart.getId()))));
+        assertThat(firstPage.get(0), allOf(
+                hasProperty("startDate", equalTo(newer.getStartDate())),
+                hasProperty("status", equalTo(BookingStatus.WAITING)),
+                hasProperty("item", allOf(
+                        hasProperty("id", equalTo(item.getId())),
+                        hasProperty("name", equalTo(item.getName())),
+                        hasProperty("requestId", nullValue()))),
+                hasProperty("booker", allOf(
+                        hasProperty("id", equalTo(booker.getId())),
+                        hasProperty("name", equalTo(booker.getName()))))));
+        assertThat(secondPage, contains(hasProperty("id", equalTo(older.getId()))));
+    }
+
+    @Test
+    void findCurrentByOwner_shouldReturnOnlyOwnersCurrentBookings() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        Item bookersItem = getItem(booker);
+        em.persist(item);
+        em.persist(bookersItem);
+        Booking current = getBooking(item, booker);
+        current.setStartDate(now.minusDays(1L));
+        Booking future = getBooking(item, booker);
+        Booking foreign = getBooking(bookersItem, owner);
+        foreign.setStartDate(now.minusDays(1L));
+        List.of(current, future, foreign).forEach(em::persist);
+        // when
+        List<BookingResponseDto> result = repository.findCurrentByOwner(owner.getId(), now, PageRequest.of(0, 10));
+        // then
+        assertThat(result, contains(hasProperty("id", equalTo(current.getId()))));
+    }
+
+    @Test
+    void findByOwnerAndStatus_shouldFilterByStatus() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        Booking waiting = getBooking(item, booker);
+        Booking rejected = getBooking(item, booker);
+        rejected.setStatus(BookingStatus.REJECTED);
+        em.persist(waiting);
+        em.persist(rejected);
+        // when
+        List<BookingResponseDto> result = repository.findByOwnerAndStatus(owner.getId(), BookingStatus.REJECTED,
+                PageRequest.of(0, 10));
+        // then
+        assertThat(result, contains(allOf(
+                hasProperty("id", equalTo(rejected.getId())),
+                hasProperty("status", equalTo(BookingStatus.REJECTED)))));
+    }
+
+    @Test
+    void streamPastByOwner_shouldApplyStateFilter() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        Booking past = getBooking(item, booker);
+        past.setStartDate(now.minusDays(3L));
+        past.setEndDate(now.minusDays(2L));
+        Booking future = getBooking(item, booker);
+        List.of(past, future).forEach(em::persist);
+        // when
+        List<BookingResponseDto> pastResult;
+        List<BookingResponseDto> allResult;
+        try (Stream<BookingResponseDto> rows = repository.streamPastByOwner(owner.getId(), now)) {
+            pastResult = rows.collect(Collectors.toList());
+        }
+        try (Stream<BookingResponseDto> rows = repository.streamByOwner(owner.getId())) {
+            allResult = rows.collect(Collectors.toList());
+        }
+        // then
+        assertThat(pastResult, contains(hasProperty("id", equalTo(past.getId()))));
+        assertThat(allResult, contains(
+                hasProperty("id", equalTo(future.getId())),
+                hasProperty("id", equalTo(past.getId()))));
+    }
+
+    @Test
+    void updateWaitingStatus_shouldChangeOnlyOwnersWaitingBookings() {
+        // given
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        Item bookersItem = getItem(booker);
+        em.persist(item);
+        em.persist(bookersItem);
+        Booking waiting = getBooking(item, booker);
+        Booking rejected = getBooking(item, booker);
+        rejected.setStatus(BookingStatus.REJECTED);
+        Booking foreign = getBooking(bookersItem, owner);
+        List.of(waiting, rejected, foreign).forEach(em::persist);
+        List<Long> ids = List.of(waiting.getId(), rejected.getId(), foreign.getId());
+        // when
+        int updated = repository.updateWaitingStatus(ids, owner.getId(), BookingStatus.APPROVED, now);
+        // then
+        assertThat(updated, is(1));
+        assertThat(repository.findAllByIdsAndOwnerForUpdate(ids, owner.getId()), containsInAnyOrder(
+                allOf(hasProperty("id", equalTo(waiting.getId())),
+                        hasProperty("status", equalTo(BookingStatus.APPROVED)),
+                        hasProperty("updatedAt", equalTo(now))),
+                allOf(hasProperty("id", equalTo(rejected.getId())),
+                        hasProperty("status", equalTo(BookingStatus.REJECTED)))));
+    }
+
     private static User getUser(String email) {
         return User.builder()
                 .name("Alexandr")
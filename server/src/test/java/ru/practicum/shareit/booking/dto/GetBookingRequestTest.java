@@ -1,10 +1,15 @@
 package ru.practicum.shareit.booking.dto;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.shareit.booking.State;
 
+import java.time.LocalDateTime;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class GetBookingRequestTest {
 
@@ -13,4 +18,25 @@ class GetBookingRequestTest {
         GetBookingRequest bookingRequest = GetBookingRequest.of(State.ALL, 1L, true, 1, 4);
         assertThat(bookingRequest.getFrom(), equalTo(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void of_shouldDecodeCursor() {
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2023, 1, 10, 12, 0), 7L);
+        GetBookingRequest bookingRequest = GetBookingRequest.of(State.ALL, 1L, false, 20, 10, cursor.encode());
+        assertThat(bookingRequest.getCursor(), equalTo(cursor));
+        assertThat(bookingRequest.getFrom(), equalTo(0));
+    }
+
+    @Test
+    void of_shouldIgnoreBlankCursor() {
+        GetBookingRequest bookingRequest = GetBookingRequest.of(State.ALL, 1L, false, 20, 10, " ");
+        assertThat(bookingRequest.getCursor(), nullValue());
+        assertThat(bookingRequest.getFrom(), equalTo(2));
+    }
+
+    @Test
+    void of_shouldThrowWhenCursorIsMalformed() {
+        assertThrows(ResponseStatusException.class,
+                () -> GetBookingRequest.of(State.ALL, 1L, false, 0, 10, "not-a-cursor"));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingCalendarTest {
+    private static final LocalDateTime DAY = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private BookingCalendar calendar;
+
+    @BeforeEach
+    void init() {
+        when(bookingRepository.findPeriodsEndingAfter(any(), any()))
+                .thenReturn(List.of(
+                        new BookingPeriod(1L, 1L, at(2), at(4)),
+                        new BookingPeriod(2L, 1L, at(10), at(20)),
+                        new BookingPeriod(3L, 1L, at(12), at(14)),
+                        new BookingPeriod(4L, 2L, at(0), at(5))));
+        calendar.load();
+    }
+
+    @Test
+    void freeWindows_shouldReturnGapsBetweenBookings() {
+        // when
+        List<AvailabilityWindowDto> windows = calendar.freeWindows(1L, at(0), at(24));
+        // then
+        assertThat(windows, contains(
+                window(0, 2),
+                window(4, 10),
+                window(20, 24)));
+    }
+
+    @Test
+    void freeWindows_shouldSkipBookingNestedInLongerOne() {
+        // when
+        List<AvailabilityWindowDto> windows = calendar.freeWindows(1L, at(13), at(22));
+        // then
+        assertThat(windows, contains(window(20, 22)));
+    }
+
+    @Test
+    void freeWindows_shouldBeEmpty_whenPeriodIsBooked() {
+        // then
+        assertThat(calendar.freeWindows(1L, at(11), at(19)), empty());
+        assertThat(calendar.freeWindows(2L, at(1), at(5)), empty());
+    }
+
+    @Test
+    void freeWindows_shouldReturnWholePeriod_forItemWithoutBookings() {
+        // then
+        assertThat(calendar.freeWindows(3L, at(0), at(24)), contains(window(0, 24)));
+    }
+
+    @Test
+    void update_shouldAddNewBooking_andReleaseRejectedOne() {
+        // given
+        Booking booking = getBooking(5L, 1L, at(5), at(7), BookingStatus.WAITING);
+        // when
+        calendar.update(booking);
+        // then
+        assertThat(calendar.freeWindows(1L, at(4), at(10)), contains(window(4, 5), window(7, 10)));
+        // when
+        booking.setStatus(BookingStatus.REJECTED);
+        calendar.update(booking);
+        // then
+        assertThat(calendar.freeWindows(1L, at(4), at(10)), contains(window(4, 10)));
+    }
+
+    @Test
+    void release_shouldFreePeriodOfBooking() {
+        // when
+        calendar.release(1L, 2L);
+        // then
+        assertThat(calendar.freeWindows(1L, at(10), at(24)), contains(window(10, 12), window(14, 24)));
+    }
+
+    @Test
+    void update_shouldDropEndedBookings() {
+        // given
+        Booking ended = getBooking(6L, 3L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                BookingStatus.APPROVED);
+        // when
+        calendar.update(ended);
+        // then
+        assertThat(calendar.freeWindows(3L, LocalDateTime.now().minusDays(3), at(0)), hasSize(1));
+    }
+
+    private static LocalDateTime at(int hours) {
+        return DAY.plusHours(hours);
+    }
+
+    private static AvailabilityWindowDto window(int from, int to) {
+        return new AvailabilityWindowDto(at(from), at(to));
+    }
+
+    private static Booking getBooking(Long id, Long itemId, LocalDateTime start, LocalDateTime end,
+                                      BookingStatus status) {
+        return Booking.builder()
+                .id(id)
+                .item(Item.builder().id(itemId).build())
+                .startDate(start)
+                .endDate(end)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Без {@code @Transactional}: занятость меняется только после коммита.
+ */
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringBootTest(properties = "db.name=calendar", webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BookingCalendarTestIT {
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final BookingCalendar calendar;
+
+    private LocalDateTime day;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+
+    @BeforeEach
+    void init() {
+        day = LocalDateTime.now().plusDays(1).withNano(0);
+        ownerId = userService.saveUser(getUserDto()).getId();
+        bookerId = userService.saveUser(getUserDto()).getId();
+        itemId = itemService.addNewItem(ItemRequestDto.builder()
+                .name("brush")
+                .description("very good brush")
+                .available(true)
+                .build(), ownerId).getId();
+    }
+
+    @Test
+    void addBooking_shouldOccupyItem_andRejectionShouldReleaseIt() {
+        // given
+        Long bookingId = bookingService.addBooking(getBookingDto(2, 4), bookerId).getId();
+        // when
+        List<AvailabilityWindowDto> windows = itemService.getAvailability(bookerId, itemId, day, day.plusHours(6));
+        // then
+        assertThat(windows, contains(
+                new AvailabilityWindowDto(day, day.plusHours(2)),
+                new AvailabilityWindowDto(day.plusHours(4), day.plusHours(6))));
+        // when
+        bookingService.approveBooking(bookingId, false, ownerId);
+        // then
+        assertThat(itemService.getAvailability(bookerId, itemId, day, day.plusHours(6)),
+                contains(new AvailabilityWindowDto(day, day.plusHours(6))));
+    }
+
+    @Test
+    void deleteUser_shouldReleaseBookingsDeletedByCascade() {
+        // given
+        bookingService.addBooking(getBookingDto(2, 4), bookerId);
+        // when
+        userService.deleteUser(bookerId);
+        // then
+        assertThat(calendar.freeWindows(itemId, day, day.plusHours(6)),
+                contains(new AvailabilityWindowDto(day, day.plusHours(6))));
+    }
+
+    private BookingRequestDto getBookingDto(int fromHour, int toHour) {
+        return BookingRequestDto.builder()
+                .status(BookingStatus.WAITING)
+                .startDate(day.plusHours(fromHour))
+                .endDate(day.plusHours(toHour))
+                .itemId(itemId)
+                .build();
+    }
+
+    private static UserRequestDto getUserDto() {
+        return UserRequestDto.builder()
+                .name("Alexandr")
+                .email(System.nanoTime() + "@mail.ru")
+                .build();
+    }
+}
@@ -1,19 +1,19 @@
 package ru.practicum.shareit.booking.service;
 
-import com.querydsl.core.types.ExpressionUtils;
-import com.querydsl.core.types.Predicate;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.State;
 import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.GetBookingRequest;
@@ -26,20 +26,25 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.dto.UserShortResponseDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.KnownUsers;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
-import static ru.practicum.shareit.booking.model.QBooking.booking;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceImplTest {
@@ -49,10 +54,12 @@ class BookingServiceImplTest {
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private KnownUsers knownUsers;
+    @Mock
+    private BookingCalendar bookingCalendar;
     @InjectMocks
     private BookingServiceImpl bookingService;
-    @Captor
-    private ArgumentCaptor<Predicate> captor;
 
     @Test
     void addBooking_shouldThrowItemNotFoundException() {
@@ -140,11 +147,71 @@ class BookingServiceImplTest {
 
         verify(itemRepository, times(1)).findById(anyLong());
         verify(userRepository, times(1)).findById(anyLong());
+        verify(bookingRepository, times(1))
+                .existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(anyLong(), anyList(), any(), any());
         verify(bookingRepository, times(1)).save(any());
+        verify(bookingCalendar, times(1)).update(booking);
 
         verifyNoMoreInteractions(itemRepository, userRepository, bookingRepository);
     }
 
+    @Test
+    void addBooking_shouldThrowConflictEx_whenPeriodOverlaps() {
+        User user = getUser(1L, "peter@mail.ru");
+        User owner = getUser(2L, "peters@mail.ru");
+        Item item = getItem(owner, true);
+        BookingRequestDto dto = getBookingRequestDto();
+
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(user));
+        when(bookingRepository.existsByItem_IdAndStatusInAndStartDateBeforeAndEndDateAfter(
+                eq(item.getId()), anyList(), eq(dto.getEndDate()), eq(dto.getStartDate())))
+                .thenReturn(true);
+
+        BookingConflictException exception = assertThrows(BookingConflictException.class,
+                () -> bookingService.addBooking(dto, 1L));
+        assertThat(exception.getMessage(), containsString("уже забронирована"));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void addBooking_shouldThrowConflictEx_whenExclusionConstraintViolated() {
+        User user = getUser(1L, "peter@mail.ru");
+        User owner = getUser(2L, "peters@mail.ru");
+        Item item = getItem(owner, true);
+        BookingRequestDto dto = getBookingRequestDto();
+
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(user));
+        when(bookingRepository.save(any()))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("conflicting key value violates exclusion constraint \""
+                                + BookingServiceImpl.OVERLAP_CONSTRAINT + "\"", "23P01")));
+
+        assertThrows(BookingConflictException.class, () -> bookingService.addBooking(dto, 1L));
+    }
+
+    @Test
+    void addBooking_shouldRethrowOtherIntegrityViolations() {
+        User user = getUser(1L, "peter@mail.ru");
+        User owner = getUser(2L, "peters@mail.ru");
+        Item item = getItem(owner, true);
+        BookingRequestDto dto = getBookingRequestDto();
+
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(user));
+        when(bookingRepository.save(any()))
+                .thenThrow(new DataIntegrityViolationException("fk violation"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> bookingService.addBooking(dto, 1L));
+    }
+
     @Test
     void getBookingById_shouldThrowBookingNotFoundEx() {
         // when
@@ -238,15 +305,58 @@ class BookingServiceImplTest {
         assertThat(approved.getStatus(), equalTo(BookingStatus.APPROVED));
     }
 
+    @Test
+    void approveBookings_shouldUpdateOnlyWaitingBookings_andReportEachId() {
+        // given
+        User user = getUser(1L, "peters@mail.ru");
+        Item item = getItem(null, true);
+        item.setId(7L);
+        Booking waiting = getBooking(user, item);
+        Booking rejected = getBooking(user, item);
+        rejected.setId(2L);
+        Booking decided = getBooking(user, item);
+        decided.setId(3L);
+        decided.setStatus(BookingStatus.APPROVED);
+        when(bookingRepository.findAllByIdsAndOwnerForUpdate(anyCollection(), anyLong()))
+                .thenReturn(List.of(waiting, rejected, decided));
+        // when
+        List<BookingDecisionResultDto> results = bookingService.approveBookings(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false),
+                new BookingDecisionDto(3L, false),
+                new BookingDecisionDto(4L, true)), 1L);
+        // then
+        assertThat(results, contains(
+                equalTo(new BookingDecisionResultDto(1L, BookingStatus.APPROVED,
+                        BookingDecisionResultDto.Outcome.UPDATED, item.getId())),
+                equalTo(new BookingDecisionResultDto(2L, BookingStatus.REJECTED,
+                        BookingDecisionResultDto.Outcome.UPDATED, item.getId())),
+                equalTo(new BookingDecisionResultDto(3L, BookingStatus.APPROVED,
+                        BookingDecisionResultDto.Outcome.ALREADY_DECIDED, item.getId())),
+                equalTo(new BookingDecisionResultDto(4L, null, BookingDecisionResultDto.Outcome.NOT_FOUND, null))));
+        verify(bookingRepository).updateWaitingStatus(eq(List.of(1L)), eq(1L), eq(BookingStatus.APPROVED), any());
+        verify(bookingRepository).updateWaitingStatus(eq(List.of(2L)), eq(1L), eq(BookingStatus.REJECTED), any());
+        verify(bookingRepository, never()).save(any());
+        verify(bookingCalendar).release(item.getId(), 2L);
+        verifyNoMoreInteractions(bookingCalendar);
+    }
+
+    @Test
+    void approveBookings_shouldThrowResponseStatusEx_whenBookingRepeated() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> bookingService.approveBookings(List.of(
+                        new BookingDecisionDto(1L, true), new BookingDecisionDto(1L, false)), 1L));
+        assertThat(exception.getMessage(), containsString("Бронь с id: 1 указана несколько раз"));
+        verifyNoInteractions(bookingRepository);
+    }
+
     @Test
     void getAllUserBookings_shouldThrowBookingNotFoundEx() {
         // given
-        List<Predicate> predicates = new ArrayList<>();
-        Pageable page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate"));
-        predicates.add(booking.item.owner.id.eq(1L));
+        Pageable page = PageRequest.of(0, 10);
         // when
-        when(bookingRepository.findAll(ExpressionUtils.allOf(predicates), page))
-                .thenReturn(Page.empty());
+        when(bookingRepository.findByOwner(1L, page))
+                .thenReturn(List.of());
         GetBookingRequest request = GetBookingRequest.of(State.ALL, 1L, true, 0, 10);
         // then
         BookingNotFoundException ex = assertThrows(BookingNotFoundException.class,
@@ -258,19 +368,10 @@ class BookingServiceImplTest {
     @Test
     void getAllUserBookings_shouldReturnBookingsRejected() {
         // given
-        List<Predicate> predicates = new ArrayList<>();
-        Pageable page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate"));
-        predicates.add(booking.booker.id.eq(1L));
-        predicates.add(booking.status.eq(BookingStatus.REJECTED));
-        User user = getUser(1L, "peters@mail.ru");
-        Item item = getItem(null, true);
-        Booking booking = getBooking(user, item);
-        booking.setStatus(BookingStatus.REJECTED);
-
-        Page<Booking> bookings = new PageImpl<>(List.of(booking));
+        BookingResponseDto booking = getBookingResponse(BookingStatus.REJECTED);
         // when
-        when(bookingRepository.findAll(ExpressionUtils.allOf(predicates), page))
-                .thenReturn(bookings);
+        when(bookingRepository.findByBookerAndStatus(eq(1L), eq(BookingStatus.REJECTED), any()))
+                .thenReturn(List.of(booking));
         GetBookingRequest request = GetBookingRequest.of(State.REJECTED, 1L, false, 0, 10);
         // then
         List<BookingResponseDto> result = bookingService.getAllUserBookings(request);
@@ -285,19 +386,11 @@ class BookingServiceImplTest {
     @Test
     void getAllUserBookings_shouldReturnBookings_WAITING() {
         // given
-        List<Predicate> predicates = new ArrayList<>();
-        Pageable page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate"));
-        predicates.add(booking.booker.id.eq(1L));
-        predicates.add(booking.status.eq(BookingStatus.WAITING));
-        User user = getUser(1L, "peters@mail.ru");
-        Item item = getItem(null, true);
-        Booking booking = getBooking(user, item);
-
-        Page<Booking> bookings = new PageImpl<>(List.of(booking));
+        BookingResponseDto booking = getBookingResponse(BookingStatus.WAITING);
         // when
-        when(bookingRepository.findAll(ExpressionUtils.allOf(predicates), page))
-                .thenReturn(bookings);
-        GetBookingRequest request = GetBookingRequest.of(State.WAITING, 1L, false, 0, 10);
+        when(bookingRepository.findByOwnerAndStatus(eq(1L), eq(BookingStatus.WAITING), any()))
+                .thenReturn(List.of(booking));
+        GetBookingRequest request = GetBookingRequest.of(State.WAITING, 1L, true, 0, 10);
         List<BookingResponseDto> result = bookingService.getAllUserBookings(request);
         // then
         assertDoesNotThrow(() -> bookingService.getAllUserBookings(request));
@@ -309,69 +402,57 @@ class BookingServiceImplTest {
     }
 
     @Test
-    void getAllUserBookings_shouldContainFuturePredicate() {
+    void getAllUserBookings_shouldQueryFutureBookings() {
         // given
-        Pageable page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate"));
-        User user = getUser(1L, "peters@mail.ru");
-        Item item = getItem(null, true);
-        Booking booking = getBooking(user, item);
-
-        Page<Booking> bookings = new PageImpl<>(List.of(booking));
         GetBookingRequest request = GetBookingRequest.of(State.FUTURE, 1L, false, 0, 10);
         // when
-        when(bookingRepository.findAll(captor.capture(), eq(page)))
-                .thenReturn(bookings);
-        List<BookingResponseDto> result = bookingService.getAllUserBookings(request);
+        when(bookingRepository.findFutureByBooker(eq(1L), any(), any()))
+                .thenReturn(List.of(getBookingResponse(BookingStatus.APPROVED)));
+        bookingService.getAllUserBookings(request);
         // then
-        Predicate value = captor.getValue();
-        assertThat(value, notNullValue());
-        assertThat(value.toString(), containsStringIgnoringCase(
-                String.format("booking.booker.id = %s && booking.startDate >", booking.getId())));
+        verify(bookingRepository).findFutureByBooker(eq(1L), any(LocalDateTime.class), eq(PageRequest.of(0, 10)));
+        verifyNoMoreInteractions(bookingRepository);
     }
 
     @Test
-    void getAllUserBookings_shouldContainCurrentPredicate() {
+    void getAllUserBookings_shouldQueryCurrentBookings() {
         // given
-        Pageable page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate"));
-        User user = getUser(1L, "peters@mail.ru");
-        Item item = getItem(null, true);
-        Booking booking = getBooking(user, item);
-
-        Page<Booking> bookings = new PageImpl<>(List.of(booking));
-        GetBookingRequest request = GetBookingRequest.of(State.CURRENT, 1L, false, 0, 10);
+        GetBookingRequest request = GetBookingRequest.of(State.CURRENT, 1L, true, 20, 10);
         // when
-        when(bookingRepository.findAll(captor.capture(), eq(page)))
-                .thenReturn(bookings);
-        List<BookingResponseDto> result = bookingService.getAllUserBookings(request);
+        when(bookingRepository.findCurrentByOwner(eq(1L), any(), any()))
+                .thenReturn(List.of(getBookingResponse(BookingStatus.APPROVED)));
+        bookingService.getAllUserBookings(request);
         // then
-        Predicate value = captor.getValue();
-        assertThat(value, notNullValue());
-        assertThat(value.toString(), allOf(
-                containsStringIgnoringCase(
-                        String.format("booking.booker.id = %s && booking.startDate <=", booking.getId())),
-                containsStringIgnoringCase("booking.endDate >")
-        ));
+        verify(bookingRepository).findCurrentByOwner(eq(1L), any(), eq(PageRequest.of(2, 10)));
+        verifyNoMoreInteractions(bookingRepository);
     }
 
     @Test
-    void getAllUserBookings_shouldContainPastPredicate() {
+    void getAllUserBookings_shouldQueryPastBookings() {
         // given
-        Pageable page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate"));
-        User user = getUser(1L, "peters@mail.ru");
-        Item item = getItem(null, true);
-        Booking booking = getBooking(user, item);
-
-        Page<Booking> bookings = new PageImpl<>(List.of(booking));
         GetBookingRequest request = GetBookingRequest.of(State.PAST, 1L, false, 0, 10);
         // when
-        when(bookingRepository.findAll(captor.capture(), eq(page)))
-                .thenReturn(bookings);
+        when(bookingRepository.findPastByBooker(eq(1L), any(), any()))
+                .thenReturn(List.of(getBookingResponse(BookingStatus.APPROVED)));
+        bookingService.getAllUserBookings(request);
+        // then
+        verify(bookingRepository).findPastByBooker(eq(1L), any(), any());
+        verifyNoMoreInteractions(bookingRepository);
+    }
+
+    @Test
+    void getAllUserBookings_shouldSeekAfterCursor() {
+        // given
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2023, 1, 10, 12, 0), 5L);
+        GetBookingRequest request = GetBookingRequest.of(State.ALL, 1L, false, 20, 10, cursor.encode());
+        // when
+        when(bookingRepository.findByBookerBefore(1L, cursor.getStartDate(), 5L, PageRequest.of(0, 10)))
+                .thenReturn(List.of());
         List<BookingResponseDto> result = bookingService.getAllUserBookings(request);
         // then
-        Predicate value = captor.getValue();
-        assertThat(value, notNullValue());
-        assertThat(value.toString(), containsStringIgnoringCase(
-                String.format("booking.booker.id = %s && booking.endDate <", booking.getId())));
+        assertThat(result, empty());
+        verify(bookingRepository).findByBookerBefore(1L, cursor.getStartDate(), 5L, PageRequest.of(0, 10));
+        verifyNoMoreInteractions(bookingRepository);
     }
 
     @Test
@@ -384,6 +465,45 @@ class BookingServiceImplTest {
         assertThat(ex.getMessage(), containsStringIgnoringCase(State.UNSUPPORTED_STATUS.name()));
     }
 
+    @Test
+    void exportOwnerBookings_shouldPassRowsToSinkAndCloseStream() {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        List<BookingResponseDto> exported = new ArrayList<>();
+        // when
+        when(bookingRepository.streamByOwnerAndStatus(1L, BookingStatus.WAITING))
+                .thenReturn(Stream.of(getBookingResponse(BookingStatus.WAITING), getBookingResponse(BookingStatus.WAITING))
+                        .onClose(() -> closed.set(true)));
+        bookingService.exportOwnerBookings(1L, State.WAITING, exported::add);
+        // then
+        assertThat(exported, hasSize(2));
+        assertThat(closed.get(), is(true));
+        verify(knownUsers).requireExists(1L);
+    }
+
+    @Test
+    void exportOwnerBookings_shouldNotQuery_whenOwnerIsUnknown() {
+        // given
+        doThrow(new UserNotFoundException("Пользователь с id: 1 не обнаружен"))
+                .when(knownUsers).requireExists(1L);
+        // when + then
+        assertThrows(UserNotFoundException.class,
+                () -> bookingService.exportOwnerBookings(1L, State.ALL, booking -> { }));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void exportOwnerBookings_shouldThrowUnknownStateEx() {
+        // when + then
+        assertThrows(UnknownStateException.class,
+                () -> bookingService.exportOwnerBookings(1L, State.UNSUPPORTED_STATUS, booking -> { }));
+    }
+
+    private static BookingResponseDto getBookingResponse(BookingStatus status) {
+        return new BookingResponseDto(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1L), status,
+                1L, "key", "good item", true, null, 2L, "Peter");
+    }
+
     private static BookingRequestDto getBookingRequestDto() {
         return BookingRequestDto.builder()
                 .id(1L)
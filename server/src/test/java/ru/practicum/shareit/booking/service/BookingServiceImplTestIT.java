@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.State;
@@ -13,15 +14,21 @@ import ru.practicum.shareit.booking.dto.GetBookingRequest;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.sql.SqlCountingConfig;
+import ru.practicum.shareit.sql.SqlStatementCounter;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
+@Import(SqlCountingConfig.class)
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @SpringBootTest(properties = "db.name=test", webEnvironment = SpringBootTest.WebEnvironment.NONE)
@@ -29,6 +36,8 @@ class BookingServiceImplTestIT {
     private final BookingService bookingService;
     private final ItemService itemService;
     private final UserService userService;
+    private final EntityManager em;
+    private final SqlStatementCounter counter;
 
 
     @Test
@@ -53,6 +62,25 @@ class BookingServiceImplTestIT {
         )));
     }
 
+    @Test
+    void getBookingById_shouldLoadItemAndBookerWithBooking() {
+        // given
+        UserRequestDto user = userService.saveUser(getUserDto("lex@mail.ru"));
+        UserRequestDto owner = userService.saveUser(getUserDto("lexa@mail.ru"));
+        ItemShortDto item = itemService.addNewItem(getItemDto(), owner.getId());
+        BookingResponseDto booking = bookingService.addBooking(getBookingRequestDto(item.getId()), user.getId());
+        em.flush();
+        em.clear();
+        counter.reset();
+        // when
+        BookingResponseDto result = bookingService.getBookingById(booking.getId(), owner.getId());
+        // then
+        assertThat(result.getItem().getName(), equalTo(item.getName()));
+        assertThat(result.getBooker().getId(), equalTo(user.getId()));
+        counter.assertSelects(1);
+        counter.assertTotal(1);
+    }
+
     @Test
     void getAllUserBookings_WhenOwner() {
         // given
@@ -83,7 +111,7 @@ class BookingServiceImplTestIT {
         ItemShortDto item = itemService.addNewItem(getItemDto(), owner.getId());
 
         BookingRequestDto bookingRequestDto = getBookingRequestDto(item.getId());
-        bookingRequestDto.setStartDate(LocalDateTime.now().plusMinutes(30));
+        bookingRequestDto.setStartDate(now().plusMinutes(30));
         BookingResponseDto booking = bookingService.addBooking(bookingRequestDto, user.getId());
 
         GetBookingRequest request = GetBookingRequest.of(State.FUTURE, user.getId(), false, 0, 10);
@@ -109,8 +137,8 @@ class BookingServiceImplTestIT {
         ItemShortDto item = itemService.addNewItem(getItemDto(), owner.getId());
 
         BookingRequestDto bookingRequestDto = getBookingRequestDto(item.getId());
-        bookingRequestDto.setStartDate(LocalDateTime.now().minusDays(15));
-        bookingRequestDto.setEndDate(LocalDateTime.now().minusDays(10));
+        bookingRequestDto.setStartDate(now().minusDays(15));
+        bookingRequestDto.setEndDate(now().minusDays(10));
         BookingResponseDto booking = bookingService.addBooking(bookingRequestDto, user.getId());
 
         GetBookingRequest request = GetBookingRequest.of(State.PAST, user.getId(), false, 0, 10);
@@ -128,6 +156,29 @@ class BookingServiceImplTestIT {
         )));
     }
 
+    @Test
+    void exportOwnerBookings_shouldMatchPagedOwnerBookings() {
+        // given
+        UserRequestDto user = userService.saveUser(getUserDto("lex@mail.ru"));
+        UserRequestDto owner = userService.saveUser(getUserDto("lexa@mail.ru"));
+        for (int i = 0; i < 3; i++) {
+            ItemShortDto item = itemService.addNewItem(getItemDto(), owner.getId());
+            BookingRequestDto bookingRequestDto = getBookingRequestDto(item.getId());
+            bookingRequestDto.setStartDate(now().plusDays(i + 1));
+            bookingService.addBooking(bookingRequestDto, user.getId());
+        }
+        List<BookingResponseDto> expected = bookingService.getAllUserBookings(
+                GetBookingRequest.of(State.ALL, owner.getId(), true, 0, 10));
+        em.flush();
+        em.clear();
+        List<BookingResponseDto> exported = new ArrayList<>();
+        // when
+        bookingService.exportOwnerBookings(owner.getId(), State.ALL, exported::add);
+        // then
+        assertThat(exported, hasSize(3));
+        assertThat(exported, equalTo(expected));
+    }
+
     @Test
     void approveBooking_shouldChangeStatusApprove() {
         UserRequestDto user = userService.saveUser(getUserDto("lex@mail.ru"));
@@ -170,9 +221,16 @@ class BookingServiceImplTestIT {
     private static BookingRequestDto getBookingRequestDto(Long itemId) {
         return BookingRequestDto.builder()
                 .status(BookingStatus.WAITING)
-                .startDate(LocalDateTime.now())
-                .endDate(LocalDateTime.now().plusDays(10))
+                .startDate(now())
+                .endDate(now().plusDays(10))
                 .itemId(itemId)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Время с точностью столбца TIMESTAMP: выборки отдают даты из базы, а не из сохранённой сущности.
+     */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
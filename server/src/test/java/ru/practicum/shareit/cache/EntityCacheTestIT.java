@@ -0,0 +1,82 @@
+package ru.practicum.shareit.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Без {@code @Transactional}: кэш второго уровня заполняется только зафиксированными транзакциями.
+ */
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringBootTest(properties = {"db.name=cache", "spring.jpa.properties.hibernate.generate_statistics=true"})
+class EntityCacheTestIT {
+    private final MockMvc mvc;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final ItemRepository itemRepository;
+
+    @Test
+    @SneakyThrows
+    void getUserById_shouldHitCache_andReportIt() {
+        // given
+        Long userId = userService.saveUser(getUserDto("cached@mail.ru")).getId();
+        userService.getUserById(userId);
+        // when
+        userService.getUserById(userId);
+        // then
+        mvc.perform(get("/actuator/entitycache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user.hits", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.user.size", greaterThanOrEqualTo(1)));
+    }
+
+    @Test
+    void updateUser_shouldNotLeaveStaleUser() {
+        // given
+        Long userId = userService.saveUser(getUserDto("renamed@mail.ru")).getId();
+        userService.getUserById(userId);
+        // when
+        userService.updateUser(UserRequestDto.builder().name("Peter").build(), userId);
+        // then
+        assertThat(userService.getUserById(userId).getName(), equalTo("Peter"));
+    }
+
+    @Test
+    void deleteUser_shouldEvictItemsDeletedByCascade() {
+        // given
+        Long ownerId = userService.saveUser(getUserDto("owner-cache@mail.ru")).getId();
+        Long itemId = itemService.addNewItem(ItemRequestDto.builder()
+                .name("brush")
+                .description("very good brush")
+                .available(true)
+                .build(), ownerId).getId();
+        itemRepository.findById(itemId);
+        // when
+        userService.deleteUser(ownerId);
+        // then
+        assertThat(itemRepository.findById(itemId).isPresent(), is(false));
+    }
+
+    private static UserRequestDto getUserDto(String email) {
+        return UserRequestDto.builder()
+                .name("Alexandr")
+                .email(email)
+                .build();
+    }
+}
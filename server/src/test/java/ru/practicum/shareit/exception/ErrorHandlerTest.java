@@ -40,4 +40,12 @@ class ErrorHandlerTest {
         assertNotNull(stringStringMap);
         assertThat(stringStringMap.get("Ошибка запроса"), equalTo(ex.getMessage()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleConflictException() {
+        BookingConflictException ex = new BookingConflictException("some ex");
+        Map<String, String> result = errorHandler.handleConflictException(ex);
+        assertNotNull(result);
+        assertThat(result.get("Ошибка запроса"), equalTo(ex.getMessage()));
+    }
+}
@@ -195,6 +195,22 @@ class ItemControllerTest {
                 );
     }
 
+    @Test
+    @SneakyThrows
+    void getItemsByOwner_shouldReturnNotModified_whenTagMatches() {
+        when(itemService.getItemsByOwnerTag(1L)).thenReturn("\"v1\"");
+
+        mvc.perform(get("/items/")
+                        .header("X-Sharer-User-Id", "1")
+                        .header("If-None-Match", "\"v1\""))
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string("ETag", "\"v1\""),
+                        content().string("")
+                );
+        verify(itemService, never()).getItemsByOwner(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     @SneakyThrows
     void search_shouldReturnItems_whenSearchRequestIsCorrect() {
@@ -262,6 +278,45 @@ class ItemControllerTest {
                 );
     }
 
+    @Test
+    @SneakyThrows
+    void getAvailability_shouldReturnFreeWindows() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 5, 10, 0);
+
+        when(itemService.getAvailability(1L, 2L, from, to))
+                .thenReturn(List.of(new AvailabilityWindowDto(from, from.plusDays(1)),
+                        new AvailabilityWindowDto(from.plusDays(2), to)));
+
+        mvc.perform(get("/items/2/availability")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-05T10:00:00")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(2)),
+                        jsonPath("$[0].start", is("2030-01-01T10:00:00")),
+                        jsonPath("$[1].end", is("2030-01-05T10:00:00"))
+                );
+    }
+
+    @Test
+    @SneakyThrows
+    void getAvailability_shouldUseDefaults_whenPeriodIsAbsent() {
+        when(itemService.getAvailability(1L, 2L, null, null))
+                .thenReturn(Collections.emptyList());
+
+        mvc.perform(get("/items/2/availability")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", empty())
+                );
+        verify(itemService).getAvailability(1L, 2L, null, null);
+    }
+
     private static CommentRequestDto getCommentRequestDto() {
         return CommentRequestDto.builder()
                 .text("very good")
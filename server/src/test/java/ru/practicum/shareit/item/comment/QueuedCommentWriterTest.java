@@ -0,0 +1,225 @@
+package ru.practicum.shareit.item.comment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.item.dao.CommentRepository;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueuedCommentWriterTest {
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @TempDir
+    Path dir;
+    private CommentQueueProperties properties;
+    private QueuedCommentWriter writer;
+
+    @BeforeEach
+    void init() throws Exception {
+        properties = new CommentQueueProperties();
+        properties.setCapacity(2);
+        properties.setLog(dir.resolve("comments.log"));
+        writer = open();
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.stop();
+    }
+
+    @Test
+    void write_shouldReturnCommentWithoutId_andLogIt() throws Exception {
+        // when
+        CommentResponseDto result = writer.write(getComment(1L, "good brush"));
+        // then
+        assertThat(result, allOf(
+                hasProperty("id", nullValue()),
+                hasProperty("text", equalTo("good brush")),
+                hasProperty("authorName", equalTo("Alexandr"))));
+        assertThat(Files.readAllLines(properties.getLog()), contains(containsString("\"text\":\"good brush\"")));
+    }
+
+    @Test
+    void write_shouldRejectWith429_whenQueueIsFull() throws Exception {
+        // given
+        writer.write(getComment(1L, "first"));
+        writer.write(getComment(1L, "second"));
+        // when
+        final ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> writer.write(getComment(1L, "third")));
+        // then
+        assertThat(ex.getStatus(), equalTo(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(Files.readAllLines(properties.getLog()), hasSize(2));
+    }
+
+    @Test
+    void write_shouldLogComment_onlyAfterCommit() throws Exception {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(getComment(1L, "good brush"));
+        assertThat(Files.readAllLines(properties.getLog()), empty());
+        assertThat(writer.findPending(10L, 1L), empty());
+        // when
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        // then
+        assertThat(Files.readAllLines(properties.getLog()), contains(containsString("\"text\":\"good brush\"")));
+        assertThat(writer.findPending(10L, 1L), contains(hasProperty("text", equalTo("good brush"))));
+    }
+
+    @Test
+    void write_shouldDropComment_whenTransactionRolledBack() throws Exception {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(getComment(1L, "good brush"));
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        // then
+        assertThat(Files.readAllLines(properties.getLog()), empty());
+        assertThat(writer.size(), equalTo(0));
+    }
+
+    @Test
+    void write_shouldLogAndQueueEveryComment_whenWrittenConcurrently() throws Exception {
+        // given
+        properties.setCapacity(1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        // when
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String text = "comment " + i;
+                writes.add(executor.submit(() -> writer.write(getComment(1L, text))));
+            }
+            for (Future<?> write : writes) {
+                write.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // then
+        List<Long> seqs = new ArrayList<>();
+        for (String line : Files.readAllLines(properties.getLog())) {
+            seqs.add(mapper.readTree(line).get("seq").asLong());
+        }
+        assertThat(seqs, hasSize(200));
+        assertThat(seqs, equalTo(seqs.stream().sorted().collect(Collectors.toList())));
+        assertThat(writer.size(), equalTo(200));
+    }
+
+    @Test
+    void findPending_shouldReturnOnlyAuthorCommentsForItem() {
+        // given
+        writer.write(getComment(1L, "about item 1"));
+        writer.write(getComment(2L, "about item 2"));
+        // when
+        List<CommentResponseDto> pending = writer.findPending(10L, 1L);
+        // then
+        assertThat(pending, contains(hasProperty("text", equalTo("about item 1"))));
+        assertThat(writer.findPending(11L, 1L), empty());
+    }
+
+    @Test
+    void open_shouldRequeueUnwrittenComments_fromLog() throws Exception {
+        // given
+        writer.write(getComment(1L, "lost on restart"));
+        writer.write(getComment(2L, "already in db"));
+        writer.stop();
+        Files.writeString(properties.getLog(), "{\"text\":\"cut o", StandardOpenOption.APPEND);
+        // when
+        when(commentRepository.existsByAuthor_IdAndItem_IdAndCreated(anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1, Long.class) == 2L);
+        writer = open();
+        // then
+        assertThat(writer.size(), equalTo(1));
+        assertThat(writer.findPending(10L, 1L), contains(hasProperty("text", equalTo("lost on restart"))));
+    }
+
+    @Test
+    void open_shouldSkipComments_markedAsWritten() throws Exception {
+        // given
+        Files.write(properties.getLog(), List.of(
+                pendingLine(1L, "written"),
+                pendingLine(2L, "not yet"),
+                "{\"written\":1}"));
+        writer.stop();
+        // when
+        writer = open();
+        // then
+        assertThat(writer.size(), equalTo(1));
+        assertThat(writer.findPending(10L, 1L), contains(hasProperty("text", equalTo("not yet"))));
+    }
+
+    private QueuedCommentWriter open() throws Exception {
+        QueuedCommentWriter result = new QueuedCommentWriter(commentRepository, itemRepository, userRepository,
+                transactionManager, mapper, properties);
+        result.open();
+        return result;
+    }
+
+    private String pendingLine(long seq, String text) throws Exception {
+        return mapper.writeValueAsString(PendingComment.builder()
+                .seq(seq)
+                .itemId(1L)
+                .authorId(10L)
+                .authorName("Alexandr")
+                .text(text)
+                .created(LocalDateTime.now())
+                .build());
+    }
+
+    private static Comment getComment(Long itemId, String text) {
+        return Comment.builder()
+                .text(text)
+                .item(Item.builder().id(itemId).build())
+                .author(User.builder().id(10L).name("Alexandr").build())
+                .created(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.comment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dao.CommentRepository;
+import ru.practicum.shareit.item.dto.CommentRequestDto;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Без {@code @Transactional}: отзывы записывает фоновый поток в своих транзакциях.
+ */
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringBootTest(properties = {"db.name=comments", "shareit.comments.ingestion=queue",
+        "shareit.comments.queue.log=" + QueuedCommentWriterTestIT.LOG})
+class QueuedCommentWriterTestIT {
+    static final String LOG = "target/comments-queue-it.log";
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final MockMvc mvc;
+    private final ObjectMapper mapper;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final CommentRepository commentRepository;
+
+    @BeforeAll
+    static void clearLog() throws Exception {
+        Files.deleteIfExists(Path.of(LOG));
+    }
+
+    @Test
+    @SneakyThrows
+    void addComment_shouldBeVisibleToAuthorAtOnce_andWrittenInBackground() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        Long ownerId = userService.saveUser(getUserDto("owner@mail.ru")).getId();
+        Long bookerId = userService.saveUser(getUserDto("booker@mail.ru")).getId();
+        Long itemId = itemService.addNewItem(ItemRequestDto.builder()
+                .name("brush")
+                .description("very good brush")
+                .available(true)
+                .build(), ownerId).getId();
+        bookingService.addBooking(BookingRequestDto.builder()
+                .status(BookingStatus.WAITING)
+                .itemId(itemId)
+                .startDate(now.minusDays(4L))
+                .endDate(now.minusDays(2L))
+                .build(), bookerId);
+        // when
+        mvc.perform(post("/items/{id}/comment", itemId).header(USER_HEADER, bookerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(CommentRequestDto.builder().text("good brush").build())))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.text", equalTo("good brush")));
+        // then
+        mvc.perform(get("/items/{id}", itemId).header(USER_HEADER, bookerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments[*].text", contains("good brush")));
+        awaitWritten(1);
+        mvc.perform(get("/items/{id}", itemId).header(USER_HEADER, bookerId))
+                .andExpect(jsonPath("$.comments", hasSize(1)))
+                .andExpect(jsonPath("$.comments[0].id", notNullValue()));
+        assertThat(Files.size(Path.of(LOG)), equalTo(0L));
+    }
+
+    private void awaitWritten(long count) throws InterruptedException {
+        for (int i = 0; i < 100 && commentRepository.count() < count; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(commentRepository.count(), equalTo(count));
+    }
+
+    private static UserRequestDto getUserDto(String email) {
+        return UserRequestDto.builder()
+                .name("Alexandr")
+                .email(email)
+                .build();
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.model.QComment;
@@ -192,6 +193,28 @@ class CommentRepositoryTest {
         Assertions.assertDoesNotThrow(() -> repository.findAllByItemIdIn(Collections.emptyList()));
     }
 
+    @Test
+    void findResponseDtoByItemId_shouldReturnCommentsWithAuthorName() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        User author = getUser("alexas@mail.ru");
+        em.persist(owner);
+        em.persist(author);
+        Item item = getItem(owner);
+        em.persist(item);
+        Comment comment = getComment(author, item);
+        em.persist(comment);
+        // when
+        List<CommentResponseDto> comments = repository.findResponseDtoByItemId(item.getId());
+        // then
+        assertThat(comments, hasSize(1));
+        assertThat(comments, hasItem(allOf(
+                hasProperty("id", equalTo(comment.getId())),
+                hasProperty("text", equalTo(comment.getText())),
+                hasProperty("authorName", equalTo(author.getName()))
+        )));
+    }
+
     private static Comment getComment(User author, Item item) {
         return Comment.builder()
                 .text("very good item")
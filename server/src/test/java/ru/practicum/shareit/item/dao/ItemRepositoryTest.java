@@ -7,10 +7,20 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDetails;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -53,6 +63,48 @@ class ItemRepositoryTest {
         assertThat(result, empty());
     }
 
+    @Test
+    void searchItemsByNameOrDescription_shouldRankNameMatchesFirst() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        em.persist(owner);
+        Item byDescription = getItem(owner);
+        byDescription.setName("comb");
+        byDescription.setDescription("comes with a brush");
+        Item inName = getItem(owner);
+        inName.setName("hairbrush");
+        Item namePrefix = getItem(owner);
+        Item unavailable = getItem(owner);
+        unavailable.setAvailable(false);
+        List.of(byDescription, inName, namePrefix, unavailable).forEach(em::persist);
+        // when
+        List<Item> result = repository.searchItemsByNameOrDescription("BRUSH", PageRequest.of(0, 10));
+        // then
+        assertThat(result, contains(namePrefix, inName, byDescription));
+    }
+
+    @Test
+    void streamAvailable_shouldSkipUnavailableItems() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        em.persist(owner);
+        Item available = getItem(owner);
+        Item unavailable = getItem(owner);
+        unavailable.setAvailable(false);
+        em.persist(available);
+        em.persist(unavailable);
+        // when
+        List<ItemSearchRow> result;
+        try (Stream<ItemSearchRow> rows = repository.streamAvailable()) {
+            result = rows.collect(Collectors.toList());
+        }
+        // then
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getId(), equalTo(available.getId()));
+        assertThat(result.get(0).getName(), equalTo(available.getName()));
+        assertThat(result.get(0).getOwnerId(), equalTo(owner.getId()));
+    }
+
     @Test
     void findAllByOwner_Id_shouldReturnItemList_WhenIdIsCorrect() {
         // given
@@ -82,6 +134,144 @@ class ItemRepositoryTest {
         assertThat(result, empty());
     }
 
+    @Test
+    void findAllByRequest_IdIn_shouldReturnItemsOfGivenRequests() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        User requestor = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(requestor);
+        RequestItem request = RequestItem.builder()
+                .description("need a brush")
+                .requestor(requestor)
+                .created(LocalDateTime.now())
+                .build();
+        RequestItem otherRequest = RequestItem.builder()
+                .description("need a comb")
+                .requestor(requestor)
+                .created(LocalDateTime.now())
+                .build();
+        em.persist(request);
+        em.persist(otherRequest);
+        Item answer = getItem(owner);
+        answer.setRequest(request);
+        Item otherAnswer = getItem(owner);
+        otherAnswer.setRequest(otherRequest);
+        em.persist(answer);
+        em.persist(otherAnswer);
+        em.persist(getItem(owner));
+        // when
+        List<Item> result = repository.findAllByRequest_IdIn(List.of(request.getId()));
+        // then
+        assertThat(result, contains(answer));
+    }
+
+    @Test
+    void findItemDetails_shouldReturnBookings_whenOwner() {
+        // given
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        Booking last = getBooking(item, booker, now.minusDays(2L), BookingStatus.APPROVED);
+        Booking next = getBooking(item, booker, now.plusDays(1L), BookingStatus.WAITING);
+        Booking rejected = getBooking(item, booker, now.plusHours(1L), BookingStatus.REJECTED);
+        em.persist(last);
+        em.persist(next);
+        em.persist(rejected);
+        // when
+        ItemDetails result = repository.findItemDetails(item.getId(), owner.getId(), now).orElseThrow();
+        // then
+        assertThat(result.getId(), equalTo(item.getId()));
+        assertThat(result.getName(), equalTo(item.getName()));
+        assertThat(result.getUserExists(), is(true));
+        assertThat(result.getNextBookingId(), equalTo(next.getId()));
+        assertThat(result.getNextBookerId(), equalTo(booker.getId()));
+        assertThat(result.getNextStart(), equalTo(next.getStartDate()));
+        assertThat(result.getLastBookingId(), equalTo(last.getId()));
+        assertThat(result.getLastEnd(), equalTo(last.getEndDate()));
+    }
+
+    @Test
+    void findItemDetails_shouldNotReturnBookings_whenNotOwner() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        em.persist(getBooking(item, booker, now.plusDays(1L), BookingStatus.WAITING));
+        // when
+        ItemDetails result = repository.findItemDetails(item.getId(), booker.getId(), now).orElseThrow();
+        // then
+        assertThat(result.getUserExists(), is(true));
+        assertThat(result.getNextBookingId(), nullValue());
+        assertThat(result.getLastBookingId(), nullValue());
+    }
+
+    @Test
+    void findItemDetails_shouldFlagUnknownUser() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        em.persist(owner);
+        Item item = getItem(owner);
+        em.persist(item);
+        // when
+        Optional<ItemDetails> result = repository.findItemDetails(item.getId(), owner.getId() + 10,
+                LocalDateTime.now());
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().getUserExists(), is(false));
+    }
+
+    @Test
+    void findItemDetails_shouldReturnEmpty_whenItemNotFound() {
+        // given
+        User owner = getUser("alex@mail.ru");
+        em.persist(owner);
+        // when
+        Optional<ItemDetails> result = repository.findItemDetails(1000L, owner.getId(), LocalDateTime.now());
+        // then
+        assertThat(result.isEmpty(), is(true));
+    }
+
+    @Test
+    void findOwnerItemsVersion_shouldChange_whenBookingAddedOrStarted() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        User owner = getUser("alex@mail.ru");
+        User booker = getUser("alexa@mail.ru");
+        em.persist(owner);
+        em.persist(booker);
+        Item item = getItem(owner);
+        em.persist(item);
+        String empty = repository.findOwnerItemsVersion(owner.getId(), now);
+        em.persist(getBooking(item, booker, now.plusDays(1L), BookingStatus.APPROVED));
+        em.flush();
+        // when
+        String booked = repository.findOwnerItemsVersion(owner.getId(), now);
+        String started = repository.findOwnerItemsVersion(owner.getId(), now.plusDays(1L).plusHours(1L));
+        // then
+        assertThat(booked, not(equalTo(empty)));
+        assertThat(started, not(equalTo(booked)));
+        assertThat(repository.findOwnerItemsVersion(owner.getId(), now), equalTo(booked));
+    }
+
+    private static Booking getBooking(Item item, User booker, LocalDateTime start, BookingStatus status) {
+        return Booking.builder()
+                .startDate(start)
+                .endDate(start.plusDays(1L))
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build();
+    }
+
     private static User getUser(String email) {
         return User.builder()
                 .name("Alexandr")
@@ -0,0 +1,171 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private InMemoryItemSearchEngine engine;
+
+    @Test
+    void search_shouldMatchWordPrefixesIgnoringCase() {
+        // given
+        engine.index(getItem(1L, "Hair Brush", "soft", true));
+        engine.index(getItem(2L, "Comb", "wooden", true));
+        // when
+        List<Item> result = engine.search("BR", PageRequest.of(0, 10));
+        // then
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getId(), equalTo(1L));
+        assertThat(result.get(0).getName(), equalTo("Hair Brush"));
+        assertThat(engine.search("rush", PageRequest.of(0, 10)), empty());
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void search_shouldRequireAllTermsAndRankNameMatchesFirst() {
+        // given
+        engine.index(getItem(1L, "Comb", "goes with a hair brush", true));
+        engine.index(getItem(2L, "Hair brush", "soft", true));
+        engine.index(getItem(3L, "Hair dryer", "loud", true));
+        // when
+        List<Item> result = engine.search("hair brush", PageRequest.of(0, 10));
+        // then
+        assertThat(result, contains(hasProperty("id", equalTo(2L)), hasProperty("id", equalTo(1L))));
+    }
+
+    @Test
+    void search_shouldApplyPage() {
+        // given
+        for (long id = 1; id <= 5; id++) {
+            engine.index(getItem(id, "drill " + id, "power tool", true));
+        }
+        // when
+        List<Item> result = engine.search("drill", PageRequest.of(1, 2));
+        // then
+        assertThat(result, contains(hasProperty("id", equalTo(3L)), hasProperty("id", equalTo(4L))));
+    }
+
+    @Test
+    void index_shouldReplaceUpdatedAndDropUnavailableItems() {
+        // given
+        engine.index(getItem(1L, "drill", "power tool", true));
+        engine.index(getItem(2L, "saw", "power tool", true));
+        // when
+        engine.index(getItem(1L, "hammer", "hand tool", true));
+        engine.index(getItem(2L, "saw", "power tool", false));
+        // then
+        assertThat(engine.search("drill", PageRequest.of(0, 10)), empty());
+        assertThat(engine.search("power", PageRequest.of(0, 10)), empty());
+        assertThat(engine.search("hand", PageRequest.of(0, 10)), hasSize(1));
+    }
+
+    @Test
+    void removeByOwner_shouldDropOnlyOwnersItems() {
+        // given
+        engine.index(getItem(1L, 10L, "drill", "power tool"));
+        engine.index(getItem(2L, 10L, "saw", "power tool"));
+        engine.index(getItem(3L, 20L, "sander", "power tool"));
+        // when
+        engine.removeByOwner(10L);
+        // then
+        assertThat(engine.search("power", PageRequest.of(0, 10)), contains(hasProperty("id", equalTo(3L))));
+        assertThat(engine.search("drill", PageRequest.of(0, 10)), empty());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_shouldLoadAvailableItemsInReadOnlyTransaction() {
+        // given
+        when(itemRepository.streamAvailable())
+                .thenReturn(Stream.of(getRow(1L, "drill", "power tool"), getRow(2L, "saw", null)));
+        // when
+        engine.afterSingletonsInstantiated();
+        // then
+        assertThat(engine.search("saw", PageRequest.of(0, 10)), contains(hasProperty("id", equalTo(2L))));
+        assertThat(engine.search("tool", PageRequest.of(0, 10)), contains(hasProperty("id", equalTo(1L))));
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void rebuild_shouldNotRestoreItemsRemovedWhileLoading() {
+        // given
+        when(itemRepository.streamAvailable()).thenAnswer(invocation -> Stream.of(
+                        getRow(1L, "drill", "power tool"), getRow(2L, "saw", "power tool"))
+                .peek(row -> {
+                    if (row.getId() == 1L) {
+                        engine.index(getItem(2L, "saw", "power tool", false));
+                        engine.index(getItem(3L, "sander", "power tool", true));
+                    }
+                }));
+        // when
+        engine.rebuild();
+        // then
+        assertThat(engine.search("power", PageRequest.of(0, 10)), contains(
+                hasProperty("id", equalTo(1L)), hasProperty("id", equalTo(3L))));
+    }
+
+    @Test
+    void rebuild_shouldNotRestoreItemsOfOwnerRemovedWhileLoading() {
+        // given
+        when(itemRepository.streamAvailable()).thenAnswer(invocation -> Stream.of(
+                        getRow(1L, "drill", "power tool"), getRow(2L, "saw", "power tool"))
+                .peek(row -> {
+                    if (row.getId() == 2L) {
+                        engine.removeByOwner(10L);
+                    }
+                }));
+        // when
+        engine.rebuild();
+        // then
+        assertThat(engine.search("power", PageRequest.of(0, 10)), empty());
+    }
+
+    private static Item getItem(Long id, String name, String description, boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .build();
+    }
+
+    private static Item getItem(Long id, Long ownerId, String name, String description) {
+        Item item = getItem(id, name, description, true);
+        item.setOwner(User.builder().id(ownerId).build());
+        return item;
+    }
+
+    private static ItemSearchRow getRow(Long id, String name, String description) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("ownerId", 10L);
+        row.put("name", name);
+        row.put("description", description);
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemSearchRow.class, row);
+    }
+}
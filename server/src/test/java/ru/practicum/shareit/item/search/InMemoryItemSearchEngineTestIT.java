@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.dto.GetSearchItem;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Без {@code @Transactional}: индекс меняется только после коммита.
+ */
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringBootTest(properties = {"db.name=search", "shareit.search.engine=memory"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class InMemoryItemSearchEngineTestIT {
+    private final ItemService itemService;
+    private final UserService userService;
+
+    @Test
+    void deleteUser_shouldDropItemsDeletedByCascade() {
+        // given
+        Long ownerId = userService.saveUser(getUserDto()).getId();
+        Long otherId = userService.saveUser(getUserDto()).getId();
+        Long searcherId = userService.saveUser(getUserDto()).getId();
+        itemService.addNewItem(getItemDto("vacuum cleaner"), ownerId);
+        Long keptId = itemService.addNewItem(getItemDto("vacuum bags"), otherId).getId();
+        assertThat(itemService.search(GetSearchItem.of("vacuum", searcherId, 0, 10)), hasSize(2));
+        // when
+        userService.deleteUser(ownerId);
+        // then
+        assertThat(itemService.search(GetSearchItem.of("vacuum", searcherId, 0, 10)),
+                contains(hasProperty("id", equalTo(keptId))));
+    }
+
+    private static ItemRequestDto getItemDto(String name) {
+        return ItemRequestDto.builder()
+                .name(name)
+                .description("for the house")
+                .available(true)
+                .build();
+    }
+
+    private static UserRequestDto getUserDto() {
+        return UserRequestDto.builder()
+                .name("Alexandr")
+                .email(System.nanoTime() + "@mail.ru")
+                .build();
+    }
+}
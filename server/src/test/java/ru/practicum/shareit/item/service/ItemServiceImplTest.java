@@ -5,27 +5,38 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingShort;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.cache.EntityCacheEvictor;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.ItemUpdatingException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.comment.CommentWriter;
 import ru.practicum.shareit.item.dao.CommentRepository;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.utils.CommentMapper;
 import ru.practicum.shareit.request.dao.RequestItemRepository;
 import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.KnownUsers;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -47,6 +58,16 @@ class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private RequestItemRepository requestItemRepository;
+    @Mock
+    private ItemSearchEngine searchEngine;
+    @Mock
+    private KnownUsers knownUsers;
+    @Mock
+    private EntityCacheEvictor cacheEvictor;
+    @Mock
+    private CommentWriter commentWriter;
+    @Mock
+    private BookingCalendar bookingCalendar;
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -83,9 +104,66 @@ class ItemServiceImplTest {
         verify(userRepository, times(1)).findById(anyLong());
         verify(requestItemRepository, times(1)).findById(anyLong());
         verify(itemRepository, times(1)).save(any());
+        verify(searchEngine, times(1)).index(item);
         verifyNoMoreInteractions(userRepository, requestItemRepository, itemRepository);
     }
 
+    @Test
+    void importItems_shouldReadOwnerAndRequestsOnce_andSaveAllItems() {
+        // given
+        User owner = getUser("some@mail.ru");
+        RequestItem request = getRequest(getUser("some2@mail.ru"));
+        request.setId(1L);
+        ItemRequestDto answer = getItemRequestDto();
+        ItemRequestDto plain = getItemRequestDto();
+        plain.setRequestId(null);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(owner));
+        when(requestItemRepository.findAllById(Set.of(1L)))
+                .thenReturn(List.of(request));
+        // when
+        List<ItemImportResultDto> result = itemService.importItems(List.of(answer, plain, answer), 1L);
+        // then
+        assertThat(result, hasSize(3));
+        assertThat(result, everyItem(hasProperty("error", nullValue())));
+        verify(itemRepository, times(1)).saveAll(argThat((List<Item> items) -> items.size() == 3
+                && items.get(0).getRequest() == request
+                && items.get(1).getRequest() == null));
+        verify(searchEngine, times(3)).index(any());
+        verifyNoMoreInteractions(userRepository, requestItemRepository, itemRepository);
+    }
+
+    @Test
+    void importItems_shouldReportRowsBreakingSchemaLimits_andSaveTheRest() {
+        // given
+        ItemRequestDto valid = getItemRequestDto();
+        ItemRequestDto longName = getItemRequestDto();
+        longName.setName("n".repeat(Item.MAX_NAME_LENGTH + 1));
+        ItemRequestDto longDescription = getItemRequestDto();
+        longDescription.setDescription("d".repeat(Item.MAX_DESCRIPTION_LENGTH + 1));
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(getUser("some@mail.ru")));
+        // when
+        List<ItemImportResultDto> result = itemService.importItems(List.of(valid, longName, longDescription), 1L);
+        // then
+        assertThat(result, contains(
+                hasProperty("error", nullValue()),
+                hasProperty("error", containsString(String.valueOf(Item.MAX_NAME_LENGTH))),
+                hasProperty("error", containsString(String.valueOf(Item.MAX_DESCRIPTION_LENGTH)))));
+        verify(itemRepository).saveAll(argThat((List<Item> items) -> items.size() == 1));
+        verify(searchEngine, times(1)).index(any());
+    }
+
+    @Test
+    void importItems_shouldThrowUserNotFoundEx() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class,
+                () -> itemService.importItems(List.of(getItemRequestDto()), 1L));
+        verifyNoInteractions(itemRepository);
+    }
+
     @Test
     void updateItem_shouldThrowItemUpdatingEx() {
         // given
@@ -161,61 +239,84 @@ class ItemServiceImplTest {
         assertThat(result.getName(), equalTo(requestDto.getName()));
         assertThat(result.getDescription(), equalTo(requestDto.getDescription()));
         assertFalse(result.getAvailable());
+        verify(cacheEvictor, times(1)).evict(Item.class, 1L);
     }
 
     @Test
     void getItemById_shouldReturnItemWithNoBookings() {
         // given
-        User owner = getUser("some@mail.ru");
-        owner.setId(1L);
-        User user = getUser("some2@mail.ru");
-        user.setId(2L);
-        Item item = getItem(owner);
-        Booking booking = getBooking(item, user);
-        List<Comment> comments = getComments(user, item);
+        ItemDetails details = getItemDetails(true, null);
+        List<CommentResponseDto> comments = List.of(getCommentResponseDto());
         // when
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong()))
-                .thenReturn(Optional.of(item));
-        when(bookingRepository.findNextBookingByItemId(anyLong(), any()))
-                .thenReturn(Optional.of(booking));
-        when(bookingRepository.findLastBookingByItemId(anyLong(), any()))
-                .thenReturn(Optional.empty());
-        when(commentRepository.findAllByItem_IdOrderByCreatedDesc(anyLong()))
+        when(itemRepository.findItemDetails(anyLong(), anyLong(), any()))
+                .thenReturn(Optional.of(details));
+        when(commentRepository.findResponseDtoByItemId(anyLong()))
                 .thenReturn(comments);
 
         ItemResponseDto result = itemService.getItemById(2L, 1L);
         // then
         assertThat(result.getNextBooking(), nullValue());
         assertThat(result.getLastBooking(), nullValue());
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(itemRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).findLastBookingByItemId(anyLong(), any());
-        verify(bookingRepository, times(1)).findNextBookingByItemId(anyLong(), any());
-        verify(commentRepository, times(1)).findAllByItem_IdOrderByCreatedDesc(anyLong());
+        assertThat(result.getComments(), equalTo(comments));
+        verify(itemRepository, times(1)).findItemDetails(anyLong(), anyLong(), any());
+        verify(commentRepository, times(1)).findResponseDtoByItemId(anyLong());
         verifyNoMoreInteractions(userRepository, itemRepository, bookingRepository, commentRepository);
     }
 
+    @Test
+    void getItemById_shouldShowAuthorPendingCommentsFirst_withoutDuplicates() {
+        // given
+        CommentResponseDto saved = getCommentResponseDto();
+        CommentResponseDto alreadyWritten = CommentResponseDto.builder()
+                .text(saved.getText())
+                .authorName(saved.getAuthorName())
+                .created(saved.getCreated())
+                .build();
+        CommentResponseDto pending = CommentResponseDto.builder()
+                .text("just now")
+                .authorName("Alexandr")
+                .created(saved.getCreated().plusMinutes(1L))
+                .build();
+        // when
+        when(itemRepository.findItemDetails(anyLong(), anyLong(), any()))
+                .thenReturn(Optional.of(getItemDetails(true, null)));
+        when(commentRepository.findResponseDtoByItemId(1L))
+                .thenReturn(List.of(saved));
+        when(commentWriter.findPending(2L, 1L))
+                .thenReturn(List.of(alreadyWritten, pending));
+        ItemResponseDto result = itemService.getItemById(2L, 1L);
+        // then
+        assertThat(result.getComments(), contains(pending, saved));
+    }
+
     @Test
     void getItemById_shouldThrowUserNotFound() {
         // when
-        when(userRepository.findById(anyLong()))
+        when(itemRepository.findItemDetails(anyLong(), anyLong(), any()))
+                .thenReturn(Optional.of(getItemDetails(false, null)));
+        // then
+        assertThrows(UserNotFoundException.class, () -> itemService.getItemById(1L, 1L));
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    void getItemById_shouldThrowUserNotFound_whenItemIsAlsoAbsent() {
+        // when
+        when(itemRepository.findItemDetails(anyLong(), anyLong(), any()))
                 .thenReturn(Optional.empty());
+        when(knownUsers.exists(anyLong()))
+                .thenReturn(false);
         // then
         assertThrows(UserNotFoundException.class, () -> itemService.getItemById(1L, 1L));
     }
 
     @Test
     void getItemById_shouldThrowItemNotFound() {
-        // given
-        User user = getUser("some@mail.ru");
-        user.setId(1L);
         // when
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong()))
+        when(itemRepository.findItemDetails(anyLong(), anyLong(), any()))
                 .thenReturn(Optional.empty());
+        when(knownUsers.exists(anyLong()))
+                .thenReturn(true);
         // then
         assertThrows(ItemNotFoundException.class, () -> itemService.getItemById(1L, 1L));
     }
@@ -223,34 +324,22 @@ class ItemServiceImplTest {
     @Test
     void getItemById_shouldReturnItemWithBookings() {
         // given
-        User owner = getUser("some@mail.ru");
-        owner.setId(1L);
-        User user = getUser("some2@mail.ru");
-        user.setId(2L);
-        Item item = getItem(owner);
-        Booking booking = getBooking(item, user);
-        List<Comment> comments = getComments(user, item);
+        LocalDateTime now = LocalDateTime.now();
+        ItemDetails details = getItemDetails(true, now);
         // when
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(owner));
-        when(itemRepository.findById(anyLong()))
-                .thenReturn(Optional.of(item));
-        when(bookingRepository.findNextBookingByItemId(anyLong(), any()))
-                .thenReturn(Optional.of(booking));
-        when(bookingRepository.findLastBookingByItemId(anyLong(), any()))
-                .thenReturn(Optional.of(booking));
-        when(commentRepository.findAllByItem_IdOrderByCreatedDesc(anyLong()))
-                .thenReturn(comments);
+        when(itemRepository.findItemDetails(anyLong(), anyLong(), any()))
+                .thenReturn(Optional.of(details));
+        when(commentRepository.findResponseDtoByItemId(anyLong()))
+                .thenReturn(Collections.emptyList());
 
         ItemResponseDto result = itemService.getItemById(1L, 1L);
         // then
         assertThat(result.getNextBooking(), notNullValue());
+        assertThat(result.getNextBooking().getStart(), equalTo(now.plusDays(1L)));
         assertThat(result.getLastBooking(), notNullValue());
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(itemRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).findLastBookingByItemId(anyLong(), any());
-        verify(bookingRepository, times(1)).findNextBookingByItemId(anyLong(), any());
-        verify(commentRepository, times(1)).findAllByItem_IdOrderByCreatedDesc(anyLong());
+        assertThat(result.getLastBooking().getStart(), equalTo(now.minusDays(1L)));
+        verify(itemRepository, times(1)).findItemDetails(anyLong(), anyLong(), any());
+        verify(commentRepository, times(1)).findResponseDtoByItemId(anyLong());
         verifyNoMoreInteractions(userRepository, itemRepository, bookingRepository, commentRepository);
     }
 
@@ -263,17 +352,16 @@ class ItemServiceImplTest {
         user.setId(2L);
         Item item = getItem(owner);
         List<Item> items = List.of(item);
-        Booking firstBook = getBooking(item, user);
-        Booking secondBook = getBooking(item, user);
-        secondBook.setStartDate(LocalDateTime.now().minusDays(1L));
-
-        List<Booking> bookings = List.of(firstBook, secondBook);
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemBookingShort> bookings = List.of(
+                getItemBookingShort(item.getId(), 1L, now.plusDays(1L), true),
+                getItemBookingShort(item.getId(), 2L, now.minusDays(1L), false));
         List<Comment> comments = getComments(user, item);
 
         // when
         when(itemRepository.findAllByOwner_Id(anyLong(), any()))
                 .thenReturn(items);
-        when(bookingRepository.findAllByItem_IdIn(anyList()))
+        when(bookingRepository.findNextAndLastByItemIds(anyList(), any()))
                 .thenReturn(bookings);
         when(commentRepository.findAllByItemIdIn(anyList()))
                 .thenReturn(comments);
@@ -282,11 +370,12 @@ class ItemServiceImplTest {
         // then
         assertThat(result, hasSize(1));
         assertThat(result, hasItem(allOf(
-                hasProperty("nextBooking", notNullValue()),
-                hasProperty("lastBooking", notNullValue())
+                hasProperty("nextBooking", hasProperty("id", equalTo(1L))),
+                hasProperty("lastBooking", hasProperty("id", equalTo(2L))),
+                hasProperty("comments", hasSize(1))
         )));
         verify(itemRepository, times(1)).findAllByOwner_Id(anyLong(), any());
-        verify(bookingRepository, times(1)).findAllByItem_IdIn(anyList());
+        verify(bookingRepository, times(1)).findNextAndLastByItemIds(anyList(), any());
         verify(commentRepository, times(1)).findAllByItemIdIn(anyList());
         verifyNoMoreInteractions(itemRepository, bookingRepository, commentRepository);
 
@@ -302,13 +391,13 @@ class ItemServiceImplTest {
         Item item = getItem(owner);
         List<Item> items = List.of(item);
 
-        List<Booking> bookings = Collections.emptyList();
+        List<ItemBookingShort> bookings = Collections.emptyList();
         List<Comment> comments = getComments(user, item);
 
         // when
         when(itemRepository.findAllByOwner_Id(anyLong(), any()))
                 .thenReturn(items);
-        when(bookingRepository.findAllByItem_IdIn(anyList()))
+        when(bookingRepository.findNextAndLastByItemIds(anyList(), any()))
                 .thenReturn(bookings);
         when(commentRepository.findAllByItemIdIn(anyList()))
                 .thenReturn(comments);
@@ -321,11 +410,23 @@ class ItemServiceImplTest {
                 hasProperty("lastBooking", nullValue())
         )));
         verify(itemRepository, times(1)).findAllByOwner_Id(anyLong(), any());
-        verify(bookingRepository, times(1)).findAllByItem_IdIn(anyList());
+        verify(bookingRepository, times(1)).findNextAndLastByItemIds(anyList(), any());
         verify(commentRepository, times(1)).findAllByItemIdIn(anyList());
         verifyNoMoreInteractions(itemRepository, bookingRepository, commentRepository);
     }
 
+    @Test
+    void getItemsByOwner_shouldNotQueryBookings_whenOwnerHasNoItems() {
+        // when
+        when(itemRepository.findAllByOwner_Id(anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+
+        List<ItemResponseDto> result = itemService.getItemsByOwner(1L, 0, 10);
+        // then
+        assertThat(result, empty());
+        verifyNoInteractions(bookingRepository, commentRepository);
+    }
+
     @Test
     void search_shouldReturnEmptyResult() {
         // given
@@ -341,15 +442,11 @@ class ItemServiceImplTest {
         // given
         User owner = getUser("some@mail.ru");
         owner.setId(1L);
-        User user = getUser("some2@mail.ru");
-        user.setId(2L);
         Item item = getItem(owner);
         List<Item> items = List.of(item);
         GetSearchItem search = GetSearchItem.of("brush", 1L, 0, 10);
         // when
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user));
-        when(itemRepository.searchItemsByNameOrDescription(anyString(), any()))
+        when(searchEngine.search(anyString(), any()))
                 .thenReturn(items);
         List<ItemRequestDto> result = itemService.search(search);
         // then
@@ -366,8 +463,8 @@ class ItemServiceImplTest {
         // given
         GetSearchItem search = GetSearchItem.of("brush", 1L, 0, 10);
         // when
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.empty());
+        doThrow(new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", 1L)))
+                .when(knownUsers).requireExists(anyLong());
         // then
         assertThrows(UserNotFoundException.class, () -> itemService.search(search));
     }
@@ -387,8 +484,8 @@ class ItemServiceImplTest {
         // given
         GetSearchItem search = GetSearchItem.of("some", 1L, 1L, 0, 10);
         // when
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.empty());
+        doThrow(new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", 1L)))
+                .when(knownUsers).requireExists(anyLong());
         // then
         assertThrows(UserNotFoundException.class, () -> itemService.searchCommentsByText(search));
     }
@@ -407,15 +504,14 @@ class ItemServiceImplTest {
         // when
         when(commentRepository.searchByText(anyLong(), anyString(), any()))
                 .thenReturn(comments);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user));
 
         List<CommentResponseDto> result = itemService.searchCommentsByText(search);
         // then
         assertThat(result, not(empty()));
         verify(commentRepository, times(1)).searchByText(anyLong(), anyString(), any());
-        verify(userRepository, times(1)).findById(anyLong());
-        verifyNoMoreInteractions(commentRepository, userRepository);
+        verify(knownUsers, times(1)).requireExists(1L);
+        verifyNoMoreInteractions(commentRepository);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -430,7 +526,7 @@ class ItemServiceImplTest {
                 .thenReturn(Optional.empty());
         // then
         assertThrows(ResponseStatusException.class, () -> itemService.addComment(item.getId(), commentDto, 1L));
-        verifyNoInteractions(commentRepository);
+        verifyNoInteractions(commentRepository, commentWriter);
     }
 
     @Test
@@ -447,8 +543,8 @@ class ItemServiceImplTest {
         // when
         when(bookingRepository.findFirstByBooker_IdAndItem_IdAndEndDateBefore(anyLong(), anyLong(), any()))
                 .thenReturn(Optional.of(booking));
-        when(commentRepository.save(any()))
-                .thenReturn(comment);
+        when(commentWriter.write(any()))
+                .thenReturn(CommentMapper.toResponseDto(comment));
         CommentResponseDto result = itemService.addComment(item.getId(), commentDto, booker.getId());
         // then
         assertThat(result, notNullValue());
@@ -457,6 +553,102 @@ class ItemServiceImplTest {
         assertThat(result.getAuthorName(), equalTo(booker.getName()));
     }
 
+    @Test
+    void getAvailability_shouldAskCalendarForNextDays_whenPeriodIsAbsent() {
+        // given
+        Item item = getItem(getUser("owner@mail.ru"));
+        List<AvailabilityWindowDto> windows = List.of(new AvailabilityWindowDto(LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1)));
+        LocalDateTime before = LocalDateTime.now();
+        // when
+        when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(item));
+        when(bookingCalendar.freeWindows(eq(1L), any(), any()))
+                .thenReturn(windows);
+        List<AvailabilityWindowDto> result = itemService.getAvailability(2L, 1L, null, null);
+        // then
+        assertThat(result, is(windows));
+        verify(knownUsers).requireExists(2L);
+        verify(bookingCalendar).freeWindows(eq(1L), argThat(from -> !from.isBefore(before)),
+                argThat(to -> !to.isBefore(before.plusDays(ItemServiceImpl.AVAILABILITY_DAYS))));
+    }
+
+    @Test
+    void getAvailability_shouldNotOfferPast() {
+        // given
+        LocalDateTime to = LocalDateTime.now().plusDays(3);
+        LocalDateTime before = LocalDateTime.now();
+        // when
+        when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(getItem(null)));
+        itemService.getAvailability(2L, 1L, LocalDateTime.now().minusDays(3), to);
+        // then
+        verify(bookingCalendar).freeWindows(eq(1L), argThat(from -> !from.isBefore(before)), eq(to));
+    }
+
+    @Test
+    void getAvailability_shouldThrowResponseStatusEx_whenPeriodIsEmpty() {
+        // given
+        LocalDateTime from = LocalDateTime.now().plusDays(3);
+        // when
+        when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(getItem(null)));
+        // then
+        assertThrows(ResponseStatusException.class,
+                () -> itemService.getAvailability(2L, 1L, from, from.minusDays(1)));
+        verifyNoInteractions(bookingCalendar);
+    }
+
+    @Test
+    void getAvailability_shouldThrowItemNotFoundEx() {
+        // when
+        when(itemRepository.findById(1L))
+                .thenReturn(Optional.empty());
+        // then
+        assertThrows(ItemNotFoundException.class, () -> itemService.getAvailability(2L, 1L, null, null));
+        verifyNoInteractions(bookingCalendar);
+    }
+
+    private static ItemDetails getItemDetails(boolean userExists, LocalDateTime bookingsTime) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 1L);
+        row.put("name", "brush");
+        row.put("description", "some brush");
+        row.put("available", true);
+        row.put("userExists", userExists);
+        if (bookingsTime != null) {
+            row.put("nextBookingId", 1L);
+            row.put("nextBookerId", 2L);
+            row.put("nextStart", bookingsTime.plusDays(1L));
+            row.put("nextEnd", bookingsTime.plusDays(2L));
+            row.put("lastBookingId", 2L);
+            row.put("lastBookerId", 2L);
+            row.put("lastStart", bookingsTime.minusDays(1L));
+            row.put("lastEnd", bookingsTime.plusHours(1L));
+        }
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemDetails.class, row);
+    }
+
+    private static ItemBookingShort getItemBookingShort(Long itemId, Long id, LocalDateTime start, boolean next) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("itemId", itemId);
+        row.put("id", id);
+        row.put("bookerId", 2L);
+        row.put("startDate", start);
+        row.put("endDate", start.plusHours(1L));
+        row.put("next", next);
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemBookingShort.class, row);
+    }
+
+    private static CommentResponseDto getCommentResponseDto() {
+        return CommentResponseDto.builder()
+                .id(1L)
+                .text("some text")
+                .authorName("Alexandr")
+                .created(LocalDateTime.now())
+                .build();
+    }
+
     private static CommentRequestDto getCommentDto(User booker, Item item) {
         return CommentRequestDto.builder()
                 .id(1L)
@@ -4,15 +4,19 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.sql.SqlCountingConfig;
+import ru.practicum.shareit.sql.SqlStatementCounter;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,12 +24,15 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 @SpringBootTest(properties = "db.name=test", webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import(SqlCountingConfig.class)
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class ItemServiceImplTestIT {
     private final ItemService itemService;
     private final BookingService bookingService;
     private final UserService userService;
+    private final EntityManager em;
+    private final SqlStatementCounter counter;
 
     @Test
     void getItemById_whenOwner_shouldReturnItem() {
@@ -92,6 +99,30 @@ class ItemServiceImplTestIT {
         )));
     }
 
+    @Test
+    void getItemsByOwner_shouldLoadItemsBookingsAndCommentsInThreeStatements() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        UserRequestDto user = userService.saveUser(getUserDto("lex@mail.ru"));
+        UserRequestDto owner = userService.saveUser(getUserDto("lexa@mail.ru"));
+        for (int i = 0; i < 3; i++) {
+            ItemShortDto item = itemService.addNewItem(getItemDto(), owner.getId());
+            bookingService.addBooking(getBookingRequestDto(
+                    item.getId(), now.minusDays(4L), now.minusDays(1L)), user.getId());
+            itemService.addComment(item.getId(), getCommentDto(), user.getId());
+        }
+        em.flush();
+        em.clear();
+        counter.reset();
+        // when
+        List<ItemResponseDto> result = itemService.getItemsByOwner(owner.getId(), 0, 10);
+        // then
+        assertThat(result, hasSize(3));
+        assertThat(result, everyItem(hasProperty("comments", hasSize(1))));
+        counter.assertSelects(3);
+        counter.assertTotal(3);
+    }
+
     @Test
     void getItemsByOwner_bookingsNullCommentsNull() {
         // given
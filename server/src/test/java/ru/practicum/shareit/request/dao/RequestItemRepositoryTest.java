@@ -6,6 +6,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.user.model.User;
 
@@ -105,6 +107,29 @@ class RequestItemRepositoryTest {
         assertThat(requests, empty());
     }
 
+    @Test
+    void findAllPaged_shouldReportNextSlice_withoutCount() {
+        // given
+        User userOne = getUser("alex@mail.ru");
+        User userTwo = getUser("alex@yandex.ru");
+        em.persist(userOne);
+        em.persist(userTwo);
+        RequestItem older = getRequest(userOne);
+        older.setCreated(LocalDateTime.now().minusDays(1L));
+        RequestItem newer = getRequest(userOne);
+        em.persist(older);
+        em.persist(newer);
+        Pageable page = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "created", "id"));
+        // when
+        Slice<RequestItem> first = repository.findAllPaged(page, userTwo.getId());
+        Slice<RequestItem> second = repository.findAllPaged(first.nextPageable(), userTwo.getId());
+        // then
+        assertThat(first.getContent(), contains(newer));
+        assertThat(first.hasNext(), is(true));
+        assertThat(second.getContent(), contains(older));
+        assertThat(second.hasNext(), is(false));
+    }
+
     private static User getUser(String email) {
         return User.builder()
                 .name("Alexandr")
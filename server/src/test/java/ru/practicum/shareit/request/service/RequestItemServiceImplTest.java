@@ -9,10 +9,12 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import ru.practicum.shareit.exception.RequestNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dao.RequestItemRepository;
 import ru.practicum.shareit.request.dto.RequestItemDto;
 import ru.practicum.shareit.request.dto.RequestItemResponseDto;
@@ -20,6 +22,7 @@ import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.request.utils.RequestItemMapper;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.KnownUsers;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,6 +41,10 @@ class RequestItemServiceImplTest {
     private RequestItemRepository reqRepo;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private KnownUsers knownUsers;
     @InjectMocks
     private RequestItemServiceImpl requestItemService;
     private RequestItemDto requestItemDto;
@@ -84,8 +91,8 @@ class RequestItemServiceImplTest {
     @Test
     void getAllRequests_shouldThrowUserNotFoundException() {
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(false);
+        doThrow(new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", 1L)))
+                .when(knownUsers).requireExists(anyLong());
         // then
         final UserNotFoundException ex = assertThrows(UserNotFoundException.class,
                 () -> requestItemService.getAllRequests(1L, 0, 10));
@@ -97,32 +104,72 @@ class RequestItemServiceImplTest {
     void getAllRequests_shouldReturnRequestList() {
         // given
         RequestItem requestItem = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
-        Page<RequestItem> page = new PageImpl<>(List.of(requestItem));
+        requestItem.setId(1L);
+        Slice<RequestItem> slice = new SliceImpl<>(List.of(requestItem));
 
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(true);
         when(reqRepo.findAllPaged(any(), anyLong()))
-                .thenReturn(page);
+                .thenReturn(slice);
+        when(itemRepository.findAllByRequest_IdIn(List.of(1L)))
+                .thenReturn(List.of());
         List<RequestItemResponseDto> dtos = requestItemService.getAllRequests(1L, 0, 10);
         // then
         assertThat(dtos, hasSize(dtos.size()));
         assertThat(dtos, hasItem(allOf(
                 hasProperty("description", equalTo("some description")),
-                hasProperty("created", notNullValue())
+                hasProperty("created", notNullValue()),
+                hasProperty("items", empty())
         )));
         assertThat(dtos, instanceOf(List.class));
 
-        verify(userRepository, Mockito.times(1)).existsById(anyLong());
+        verify(knownUsers, Mockito.times(1)).requireExists(1L);
         verify(reqRepo, Mockito.times(1)).findAllPaged(any(), anyLong());
         verifyNoMoreInteractions(userRepository, reqRepo);
     }
 
+    @Test
+    void getAllRequests_shouldAttachItemsLoadedInOneQuery() {
+        // given
+        RequestItem first = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
+        first.setId(1L);
+        RequestItem second = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
+        second.setId(2L);
+        Item item = Item.builder()
+                .id(10L)
+                .name("brush")
+                .description("good brush")
+                .available(true)
+                .request(second)
+                .build();
+        // when
+        when(reqRepo.findAllPaged(any(), anyLong()))
+                .thenReturn(new SliceImpl<>(List.of(second, first)));
+        when(itemRepository.findAllByRequest_IdIn(List.of(2L, 1L)))
+                .thenReturn(List.of(item));
+        List<RequestItemResponseDto> dtos = requestItemService.getAllRequests(1L, 0, 10);
+        // then
+        assertThat(dtos, contains(hasProperty("id", equalTo(2L)), hasProperty("id", equalTo(1L))));
+        assertThat(dtos.get(0).getItems(), contains(hasProperty("id", equalTo(10L))));
+        assertThat(dtos.get(1).getItems(), empty());
+        verify(itemRepository, times(1)).findAllByRequest_IdIn(anyList());
+    }
+
+    @Test
+    void getAllRequests_shouldNotLoadItems_whenNoRequests() {
+        // when
+        when(reqRepo.findAllPaged(any(), anyLong()))
+                .thenReturn(new SliceImpl<>(List.of()));
+        List<RequestItemResponseDto> dtos = requestItemService.getAllRequests(1L, 0, 10);
+        // then
+        assertThat(dtos, empty());
+        verifyNoInteractions(itemRepository);
+    }
+
     @Test
     void getRequests_shouldThrowUserNotFoundException() {
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(false);
+        doThrow(new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", 1L)))
+                .when(knownUsers).requireExists(anyLong());
         // then
         final UserNotFoundException ex = assertThrows(UserNotFoundException.class,
                 () -> requestItemService.getRequests(1L));
@@ -133,12 +180,13 @@ class RequestItemServiceImplTest {
     void getRequests_shouldReturnRequestsList() {
         // given
         RequestItem requestItem = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
+        requestItem.setId(1L);
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(true);
 
         when(reqRepo.findAllByRequestorId(anyLong()))
                 .thenReturn(List.of(requestItem));
+        when(itemRepository.findAllByRequest_IdIn(List.of(1L)))
+                .thenReturn(List.of());
         List<RequestItemResponseDto> dtos = requestItemService.getRequests(1L);
         // then
         assertThat(dtos, hasSize(dtos.size()));
@@ -148,16 +196,43 @@ class RequestItemServiceImplTest {
         )));
         assertThat(dtos, instanceOf(List.class));
 
-        verify(userRepository, Mockito.times(1)).existsById(anyLong());
+        verify(knownUsers, Mockito.times(1)).requireExists(1L);
         verify(reqRepo, Mockito.times(1)).findAllByRequestorId(1L);
         verifyNoMoreInteractions(userRepository, reqRepo);
     }
 
+    @Test
+    void getRequests_shouldGroupItemsByRequest() {
+        // given
+        RequestItem first = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
+        first.setId(1L);
+        RequestItem second = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
+        second.setId(2L);
+        Item brush = Item.builder().id(10L).name("brush").available(true).request(first).build();
+        Item comb = Item.builder().id(11L).name("comb").available(true).request(first).build();
+        Item key = Item.builder().id(12L).name("key").available(false).request(second).build();
+        // when
+        when(reqRepo.findAllByRequestorId(anyLong()))
+                .thenReturn(List.of(first, second));
+        when(itemRepository.findAllByRequest_IdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(brush, key, comb));
+        List<RequestItemResponseDto> dtos = requestItemService.getRequests(1L);
+        // then
+        assertThat(dtos, hasSize(2));
+        assertThat(dtos.get(0).getItems(), contains(
+                hasProperty("id", equalTo(10L)),
+                hasProperty("id", equalTo(11L))));
+        assertThat(dtos.get(1).getItems(), contains(
+                allOf(hasProperty("id", equalTo(12L)), hasProperty("requestId", equalTo(2L)))));
+        verify(itemRepository, times(1)).findAllByRequest_IdIn(anyList());
+        verifyNoMoreInteractions(itemRepository);
+    }
+
     @Test
     void getRequestById_shouldThrowUserNotFoundException() {
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(false);
+        doThrow(new UserNotFoundException(String.format("Пользователь с id: %s не обнаружен", 1L)))
+                .when(knownUsers).requireExists(anyLong());
         // then
         final UserNotFoundException ex = assertThrows(UserNotFoundException.class,
                 () -> requestItemService.getRequestById(1L, 1L));
@@ -167,8 +242,6 @@ class RequestItemServiceImplTest {
     @Test
     void getRequestById_shouldThrowRequestNotFoundException() {
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(true);
         when(reqRepo.findById(anyLong()))
                 .thenReturn(Optional.empty());
         // then
@@ -183,8 +256,6 @@ class RequestItemServiceImplTest {
         RequestItem requestItem = RequestItemMapper.dtoToRequest(requestItemDto, requestor);
         requestItem.setId(1L);
         // when
-        when(userRepository.existsById(anyLong()))
-                .thenReturn(true);
 
         when(reqRepo.findById(anyLong()))
                 .thenReturn(Optional.of(requestItem));
@@ -198,7 +269,7 @@ class RequestItemServiceImplTest {
         ));
         assertThat(dto, instanceOf(RequestItemResponseDto.class));
 
-        verify(userRepository, Mockito.times(1)).existsById(1L);
+        verify(knownUsers, Mockito.times(1)).requireExists(1L);
         verify(reqRepo, Mockito.times(1)).findById(1L);
         verifyNoMoreInteractions(userRepository, reqRepo);
     }
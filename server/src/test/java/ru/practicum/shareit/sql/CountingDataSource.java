@@ -0,0 +1,71 @@
+package ru.practicum.shareit.sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Обёртка над {@link DataSource}: каждое подготовленное или выполненное выражение передаётся в счётчик.
+ * Подготовленное выражение считается один раз, сколько бы раз его ни выполняли пакетом.
+ */
+public final class CountingDataSource {
+    private CountingDataSource() {
+    }
+
+    public static DataSource wrap(DataSource target, SqlStatementCounter counter) {
+        return proxy(DataSource.class, target, (method, args) -> {
+            Object result = method.invoke(target, args);
+            if (result instanceof Connection) {
+                return wrap((Connection) result, counter);
+            }
+            return result;
+        });
+    }
+
+    private static Connection wrap(Connection target, SqlStatementCounter counter) {
+        return proxy(Connection.class, target, (method, args) -> {
+            String name = method.getName();
+            if ((name.equals("prepareStatement") || name.equals("prepareCall")) && args[0] instanceof String) {
+                counter.record((String) args[0]);
+            }
+            Object result = method.invoke(target, args);
+            if (name.equals("createStatement")) {
+                return wrap((Statement) result, counter);
+            }
+            return result;
+        });
+    }
+
+    private static Statement wrap(Statement target, SqlStatementCounter counter) {
+        return proxy(Statement.class, target, (method, args) -> {
+            if (method.getName().startsWith("execute") && args != null && args.length > 0
+                    && args[0] instanceof String) {
+                counter.record((String) args[0]);
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") && type.equals(args[0])) {
+                return proxy;
+            }
+            try {
+                return invocation.invoke(method, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @FunctionalInterface
+    private interface Invocation {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
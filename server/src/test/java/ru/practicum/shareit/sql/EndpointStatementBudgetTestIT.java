@@ -0,0 +1,362 @@
+package ru.practicum.shareit.sql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.CommentRequestDto;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.RequestItemDto;
+import ru.practicum.shareit.request.service.RequestItemService;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджеты SQL-выражений на вызов каждого эндпоинта сервера.
+ * Данные готовятся заранее, контекст сохранения очищается, так что считаются только выражения самого вызова.
+ */
+@Transactional
+@AutoConfigureMockMvc
+@Import(SqlCountingConfig.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringBootTest(properties = "db.name=budget")
+class EndpointStatementBudgetTestIT {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int ITEMS = 5;
+
+    private final MockMvc mvc;
+    private final ObjectMapper mapper;
+    private final EntityManager em;
+    private final SqlStatementCounter counter;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final RequestItemService requestService;
+
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+    private Long bookingId;
+    private Long requestId;
+
+    @BeforeEach
+    void init() {
+        LocalDateTime now = LocalDateTime.now();
+        ownerId = userService.saveUser(getUserDto("owner@mail.ru")).getId();
+        bookerId = userService.saveUser(getUserDto("booker@mail.ru")).getId();
+        requestId = requestService.addNewRequest(RequestItemDto.builder()
+                .description("need a brush")
+                .build(), bookerId).getId();
+        for (int i = 0; i < ITEMS; i++) {
+            ItemRequestDto itemDto = getItemDto();
+            itemDto.setRequestId(requestId);
+            itemId = itemService.addNewItem(itemDto, ownerId).getId();
+            BookingResponseDto past = bookingService.addBooking(
+                    getBookingDto(itemId, now.minusDays(4L), now.minusDays(2L)), bookerId);
+            bookingService.approveBooking(past.getId(), true, ownerId);
+            bookingId = bookingService.addBooking(
+                    getBookingDto(itemId, now.plusDays(1L), now.plusDays(2L)), bookerId).getId();
+            itemService.addComment(itemId, CommentRequestDto.builder().text("good brush").build(), bookerId);
+        }
+        em.flush();
+        em.clear();
+        counter.reset();
+    }
+
+    @Test
+    void addUser() {
+        perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                .content(json(getUserDto("new@mail.ru"))));
+        counter.assertInserts(1);
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void getUsers() {
+        perform(get("/users"));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void getUserById() {
+        perform(get("/users/{id}", ownerId));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void updateUser() {
+        perform(patch("/users/{id}", ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(UserRequestDto.builder().name("Peter").build())));
+        counter.assertUpdates(1);
+        counter.assertTotal(3);
+    }
+
+    @Test
+    void deleteUser() {
+        Long userId = userService.saveUser(getUserDto("new@mail.ru")).getId();
+        em.flush();
+        counter.reset();
+        perform(delete("/users/{id}", userId));
+        counter.assertDeletes(1);
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void addItem() {
+        perform(post("/items").header(USER_HEADER, ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(getItemDto())));
+        counter.assertInserts(1);
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void importItems_shouldBatchInserts() {
+        List<ItemRequestDto> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            items.add(getItemDto());
+        }
+        perform(post("/items/import").header(USER_HEADER, ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(items)));
+        counter.assertInserts(3);
+        counter.assertTotal(7);
+    }
+
+    @Test
+    void updateItem() {
+        perform(patch("/items/{id}", itemId).header(USER_HEADER, ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(ItemRequestDto.builder().name("comb").build())));
+        counter.assertUpdates(1);
+        counter.assertTotal(3);
+    }
+
+    @Test
+    void getItemById() {
+        perform(get("/items/{id}", itemId).header(USER_HEADER, ownerId));
+        counter.assertTotal(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, ITEMS, 20})
+    void getItemsByOwner_shouldNotDependOnPageSize(int size) {
+        perform(get("/items").header(USER_HEADER, ownerId).param("size", String.valueOf(size)));
+        counter.assertTotal(4);
+    }
+
+    @Test
+    void getItemsByOwner_shouldOnlyReadVersion_whenNotModified() {
+        assertNotModified(get("/items").header(USER_HEADER, ownerId));
+    }
+
+    @Test
+    void getAvailability_shouldNotReadBookings() {
+        perform(get("/items/{id}/availability", itemId).header(USER_HEADER, bookerId));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void searchItems() {
+        perform(get("/items/search").header(USER_HEADER, bookerId).param("text", "brush"));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void searchComments() {
+        perform(get("/items/{id}/comment/search", itemId).header(USER_HEADER, bookerId).param("text", "good"));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void addComment() {
+        perform(post("/items/{id}/comment", itemId).header(USER_HEADER, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(CommentRequestDto.builder().text("still good").build())));
+        counter.assertInserts(1);
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void addBooking() {
+        LocalDateTime start = LocalDateTime.now().plusDays(10L);
+        perform(post("/bookings").header(USER_HEADER, bookerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(getBookingDto(itemId, start, start.plusDays(1L)))));
+        counter.assertInserts(1);
+        counter.assertSelects(3);
+        counter.assertTotal(4);
+    }
+
+    @Test
+    void getBookingById() {
+        perform(get("/bookings/{id}", bookingId).header(USER_HEADER, bookerId));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void approveBooking() {
+        perform(patch("/bookings/{id}", bookingId).header(USER_HEADER, ownerId).param("approved", "true"));
+        counter.assertUpdates(1);
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void approveBookings_shouldNotDependOnBatchSize() {
+        LocalDateTime start = LocalDateTime.now().plusDays(10L);
+        List<BookingDecisionDto> decisions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Long id = bookingService.addBooking(getBookingDto(itemId, start.plusDays(i), start.plusDays(i).plusHours(1L)),
+                    bookerId).getId();
+            decisions.add(new BookingDecisionDto(id, i % 2 == 0));
+        }
+        decisions.add(new BookingDecisionDto(bookingId, true));
+        em.flush();
+        counter.reset();
+        perform(patch("/bookings/approve").header(USER_HEADER, ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(decisions)));
+        counter.assertUpdates(2);
+        counter.assertTotal(3);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "FUTURE", "PAST", "CURRENT", "WAITING", "REJECTED"})
+    void getBookerBookings(String state) {
+        mvcPerform(get("/bookings").header(USER_HEADER, bookerId).param("state", state));
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void getBookerBookings_shouldOnlyReadVersion_whenNotModified() {
+        assertNotModified(get("/bookings").header(USER_HEADER, bookerId));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "FUTURE", "PAST", "CURRENT", "WAITING", "REJECTED"})
+    void getOwnerBookings(String state) {
+        mvcPerform(get("/bookings/owner").header(USER_HEADER, ownerId).param("state", state));
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void getOwnerBookings_shouldOnlyReadVersion_whenNotModified() {
+        assertNotModified(get("/bookings/owner").header(USER_HEADER, ownerId));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "FUTURE", "PAST", "CURRENT", "WAITING", "REJECTED"})
+    void exportOwnerBookings(String state) {
+        perform(get("/bookings/owner/export").header(USER_HEADER, ownerId).param("state", state));
+        counter.assertTotal(1);
+    }
+
+    @Test
+    void addRequest() {
+        perform(post("/requests").header(USER_HEADER, ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(RequestItemDto.builder().description("need a comb").build())));
+        counter.assertInserts(1);
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void getOwnRequests() {
+        perform(get("/requests").header(USER_HEADER, bookerId));
+        counter.assertTotal(3);
+    }
+
+    @Test
+    void getOwnRequests_shouldOnlyReadVersion_whenNotModified() {
+        assertNotModified(get("/requests").header(USER_HEADER, bookerId));
+    }
+
+    @Test
+    void getAllRequests() {
+        perform(get("/requests/all").header(USER_HEADER, ownerId));
+        counter.assertTotal(2);
+    }
+
+    @Test
+    void getRequestById() {
+        perform(get("/requests/{id}", requestId).header(USER_HEADER, ownerId));
+        counter.assertTotal(2);
+    }
+
+    @SneakyThrows
+    private void perform(RequestBuilder request) {
+        mvc.perform(request).andExpect(status().is2xxSuccessful());
+        em.flush();
+    }
+
+    /**
+     * Для выдачи броней, где пустой результат по состоянию отвечает 404: считаются выражения при любом ответе.
+     */
+    @SneakyThrows
+    private void mvcPerform(RequestBuilder request) {
+        mvc.perform(request);
+        em.flush();
+    }
+
+    /**
+     * Повторный запрос с полученным ETag отвечает 304 после единственного запроса версии.
+     */
+    @SneakyThrows
+    private void assertNotModified(MockHttpServletRequestBuilder request) {
+        String etag = mvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        counter.reset();
+        mvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+        counter.assertTotal(1);
+    }
+
+    @SneakyThrows
+    private String json(Object value) {
+        return mapper.writeValueAsString(value);
+    }
+
+    private static UserRequestDto getUserDto(String email) {
+        return UserRequestDto.builder()
+                .name("Alexandr")
+                .email(email)
+                .build();
+    }
+
+    private static ItemRequestDto getItemDto() {
+        return ItemRequestDto.builder()
+                .name("brush")
+                .description("very good brush")
+                .available(true)
+                .build();
+    }
+
+    private static BookingRequestDto getBookingDto(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return BookingRequestDto.builder()
+                .status(BookingStatus.WAITING)
+                .itemId(itemId)
+                .startDate(start)
+                .endDate(end)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.sql;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Подключает подсчёт SQL-выражений к тестовому контексту: {@code @Import(SqlCountingConfig.class)}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlCountingConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor(ObjectProvider<SqlStatementCounter> counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource) {
+                    return CountingDataSource.wrap((DataSource) bean, counter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Считает SQL-выражения, которые приложение отправляет в БД через {@link CountingDataSource}.
+ */
+public class SqlStatementCounter {
+    public enum Type {
+        SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+        static Type of(String sql) {
+            String statement = sql.stripLeading().toUpperCase(Locale.ROOT);
+            for (Type type : values()) {
+                if (statement.startsWith(type.name())) {
+                    return type;
+                }
+            }
+            return statement.startsWith("WITH") ? SELECT : OTHER;
+        }
+    }
+
+    private final Map<Type, AtomicLong> counts = new EnumMap<>(Type.class);
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    public SqlStatementCounter() {
+        for (Type type : Type.values()) {
+            counts.put(type, new AtomicLong());
+        }
+    }
+
+    void record(String sql) {
+        counts.get(Type.of(sql)).incrementAndGet();
+        statements.add(sql);
+    }
+
+    public void reset() {
+        counts.values().forEach(count -> count.set(0));
+        statements.clear();
+    }
+
+    public long count(Type type) {
+        return counts.get(type).get();
+    }
+
+    public long total() {
+        return counts.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public List<String> statements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    public void assertSelects(long budget) {
+        assertBudget(Type.SELECT, budget);
+    }
+
+    public void assertInserts(long budget) {
+        assertBudget(Type.INSERT, budget);
+    }
+
+    public void assertUpdates(long budget) {
+        assertBudget(Type.UPDATE, budget);
+    }
+
+    public void assertDeletes(long budget) {
+        assertBudget(Type.DELETE, budget);
+    }
+
+    public void assertTotal(long budget) {
+        assertThat(describe("Всего выражений"), total(), lessThanOrEqualTo(budget));
+    }
+
+    private void assertBudget(Type type, long budget) {
+        assertThat(describe(type.name()), count(type), lessThanOrEqualTo(budget));
+    }
+
+    private String describe(String what) {
+        return what + " сверх бюджета, выполнены:\n" + String.join("\n", statements());
+    }
+}
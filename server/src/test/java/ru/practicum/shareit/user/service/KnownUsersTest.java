@@ -0,0 +1,103 @@
+package ru.practicum.shareit.user.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.user.dao.UserRepository;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KnownUsersTest {
+    @Mock
+    private UserRepository userRepository;
+    private KnownUsers knownUsers;
+
+    @BeforeEach
+    void init() {
+        knownUsers = new KnownUsers(userRepository);
+    }
+
+    @Test
+    void exists_shouldNotQueryDb_whenLoadedAtStartup() {
+        // given
+        when(userRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+        knownUsers.load();
+        // when
+        knownUsers.requireExists(1L);
+        knownUsers.requireExists(2L);
+        // then
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void exists_shouldRememberUser_whenFoundInDb() {
+        // when
+        when(userRepository.existsById(3L)).thenReturn(true);
+        // then
+        assertThat(knownUsers.exists(3L), is(true));
+        assertThat(knownUsers.exists(3L), is(true));
+        verify(userRepository, times(1)).existsById(3L);
+    }
+
+    @Test
+    void requireExists_shouldThrowUserNotFound_whenAbsentInDb() {
+        // when
+        when(userRepository.existsById(4L)).thenReturn(false);
+        // then
+        final UserNotFoundException ex = assertThrows(UserNotFoundException.class,
+                () -> knownUsers.requireExists(4L));
+        assertThat(ex.getMessage(), containsString("Пользователь с id: 4 не обнаружен"));
+    }
+
+    @Test
+    void exists_shouldAskDb_afterRemove() {
+        // given
+        knownUsers.add(5L);
+        knownUsers.remove(5L);
+        // when
+        when(userRepository.existsById(5L)).thenReturn(false);
+        // then
+        assertThat(knownUsers.exists(5L), is(false));
+    }
+
+    @Test
+    void add_shouldBeForgotten_whenTransactionRolledBack() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            knownUsers.add(6L);
+            // when
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        when(userRepository.existsById(6L)).thenReturn(false);
+        // then
+        assertThat(knownUsers.exists(6L), is(false));
+    }
+
+    @Test
+    void exists_shouldAlwaysAskDb_whenIdDoesNotFitInSet() {
+        // given
+        long id = Integer.MAX_VALUE + 1L;
+        knownUsers.add(id);
+        // when
+        when(userRepository.existsById(id)).thenReturn(true);
+        knownUsers.exists(id);
+        knownUsers.exists(id);
+        // then
+        verify(userRepository, times(2)).existsById(id);
+    }
+}
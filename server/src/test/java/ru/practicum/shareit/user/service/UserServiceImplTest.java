@@ -6,7 +6,12 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.cache.EntityCacheEvictor;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 import ru.practicum.shareit.user.model.User;
@@ -24,6 +29,14 @@ import static org.mockito.Mockito.*;
 class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private KnownUsers knownUsers;
+    @Mock
+    private EntityCacheEvictor cacheEvictor;
+    @Mock
+    private BookingCalendar bookingCalendar;
+    @Mock
+    private ItemSearchEngine searchEngine;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -60,6 +73,7 @@ class UserServiceImplTest {
         assertThat(result.getId(), equalTo(user.getId()));
         assertThat(result.getName(), equalTo(user.getName()));
         verify(userRepository, times(1)).save(ArgumentMatchers.any());
+        verify(knownUsers, times(1)).add(1L);
         verifyNoMoreInteractions(userRepository);
     }
 
@@ -108,6 +122,7 @@ class UserServiceImplTest {
         // then
         assertThat(result.getEmail(), equalTo(user.getEmail()));
         assertThat(result.getName(), equalTo(dto.getName()));
+        verify(cacheEvictor, times(1)).evict(User.class, 1L);
     }
 
     @Test
@@ -116,6 +131,11 @@ class UserServiceImplTest {
         userService.deleteUser(1L);
         // then
         verify(userRepository, times(1)).deleteById(anyLong());
+        verify(knownUsers, times(1)).remove(1L);
+        verify(cacheEvictor, times(1)).evict(User.class, 1L);
+        verify(cacheEvictor, times(1)).evictAll(Item.class, RequestItem.class);
+        verify(bookingCalendar, times(1)).reload();
+        verify(searchEngine, times(1)).removeByOwner(1L);
         verifyNoMoreInteractions(userRepository);
     }
 
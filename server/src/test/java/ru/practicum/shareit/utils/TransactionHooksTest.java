@@ -0,0 +1,61 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class TransactionHooksTest {
+    private final List<String> actions = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void afterCommit_shouldRunImmediately_whenNoTransaction() {
+        // when
+        TransactionHooks.afterCommit(() -> actions.add("commit"));
+        TransactionHooks.afterRollback(() -> actions.add("rollback"));
+        // then
+        assertThat(actions, contains("commit"));
+    }
+
+    @Test
+    void afterCommit_shouldWaitForCommit() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionHooks.afterCommit(() -> actions.add("commit"));
+        TransactionHooks.afterRollback(() -> actions.add("rollback"));
+        assertThat(actions, empty());
+        // when
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> {
+            sync.afterCommit();
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        });
+        // then
+        assertThat(actions, contains("commit"));
+    }
+
+    @Test
+    void afterRollback_shouldRunOnlyOnRollback() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionHooks.afterCommit(() -> actions.add("commit"));
+        TransactionHooks.afterRollback(() -> actions.add("rollback"));
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        // then
+        assertThat(actions, contains("rollback"));
+    }
+}